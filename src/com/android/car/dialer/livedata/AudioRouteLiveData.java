@@ -16,48 +16,29 @@
 
 package com.android.car.dialer.livedata;
 
-import android.bluetooth.BluetoothHeadsetClient;
-import android.content.BroadcastReceiver;
-import android.content.Context;
-import android.content.Intent;
-import android.content.IntentFilter;
-
 import androidx.lifecycle.LiveData;
 
 import com.android.car.dialer.log.L;
 import com.android.car.dialer.telecom.UiCallManager;
 
 /**
- * Provides the current connecting audio route.
+ * Provides the current connecting audio route. It is updated by {@link UiCallManager} when the
+ * HFP audio state or the call audio state changes.
  */
 public class AudioRouteLiveData extends LiveData<Integer> {
     private static final String TAG = "CD.AudioRouteLiveData";
 
-    private final Context mContext;
-    private final IntentFilter mAudioRouteChangeFilter;
-
-    private final BroadcastReceiver mAudioRouteChangeReceiver = new BroadcastReceiver() {
-        @Override
-        public void onReceive(Context context, Intent intent) {
-            updateAudioRoute();
-        }
-    };
-
-    public AudioRouteLiveData(Context context) {
-        mContext = context;
-        mAudioRouteChangeFilter =
-                new IntentFilter(BluetoothHeadsetClient.ACTION_AUDIO_STATE_CHANGED);
-    }
+    private final UiCallManager.AudioRouteListener mAudioRouteListener = this::updateAudioRoute;
 
     @Override
     protected void onActive() {
         updateAudioRoute();
-        mContext.registerReceiver(mAudioRouteChangeReceiver, mAudioRouteChangeFilter);
+        UiCallManager.get().addAudioRouteListener(mAudioRouteListener);
     }
 
     @Override
     protected void onInactive() {
-        mContext.unregisterReceiver(mAudioRouteChangeReceiver);
+        UiCallManager.get().removeAudioRouteListener(mAudioRouteListener);
     }
 
     private void updateAudioRoute() {
@@ -22,6 +22,7 @@ import android.telecom.InCallService;
 import androidx.annotation.NonNull;
 import androidx.lifecycle.LiveData;
 
+import com.android.car.dialer.telecom.CallEventHub;
 import com.android.car.telephony.common.CallDetail;
 
 import java.util.List;
@@ -41,13 +42,13 @@ public class CallDetailLiveData extends LiveData<CallDetail> {
     protected void onActive() {
         super.onActive();
         setTelecomCallDetail(mTelecomCall);
-        mTelecomCall.registerCallback(mCallback);
+        CallEventHub.registerCallback(mTelecomCall, mCallback);
     }
 
     @Override
     protected void onInactive() {
         super.onInactive();
-        mTelecomCall.unregisterCallback(mCallback);
+        CallEventHub.unregisterCallback(mTelecomCall, mCallback);
     }
 
     private Call.Callback mCallback = new Call.Callback() {
@@ -89,6 +90,6 @@ public class CallDetailLiveData extends LiveData<CallDetail> {
     };
 
     private void setTelecomCallDetail(Call telecomCall) {
-        setValue(CallDetail.fromTelecomCallDetail(telecomCall.getDetails()));
+        setValue(CallEventHub.getCallDetail(telecomCall));
     }
 }
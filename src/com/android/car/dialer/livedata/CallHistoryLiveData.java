@@ -24,22 +24,44 @@ import android.net.Uri;
 import android.provider.CallLog;
 
 import androidx.annotation.IntDef;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import androidx.annotation.WorkerThread;
+import androidx.lifecycle.LiveData;
 
-import com.android.car.telephony.common.AsyncQueryLiveData;
+import com.android.car.dialer.log.L;
+import com.android.car.dialer.widget.WorkerExecutor;
+import com.android.car.telephony.common.ObservableAsyncQuery;
 import com.android.car.telephony.common.PhoneCallLog;
 import com.android.car.telephony.common.QueryParam;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
- * Live data which loads call history.
+ * Live data which loads call history page by page.
+ *
+ * <p>The first page is loaded when this live data becomes active. Older call logs are loaded on
+ * demand by {@link #loadMore()}. When the call log provider notifies a change, only the call logs
+ * newer than the most recent loaded one are queried and merged to the head of the list. If the
+ * change is not an insertion, e.g. call logs are deleted when the phone disconnects, all the call
+ * logs loaded so far are reloaded.
+ *
+ * <p>Rows are converted and merged on the worker thread. Pages are bounded by the date and id of
+ * their rows, so rows sharing a date are neither skipped nor loaded twice.
  */
 //TODO: Rename to PhoneCallLogLiveData
-public class CallHistoryLiveData extends AsyncQueryLiveData<List<PhoneCallLog>> {
-    /** The default limit of loading call logs */
-    private final static int DEFAULT_CALL_LOG_LIMIT = 100;
+public class CallHistoryLiveData extends LiveData<List<PhoneCallLog>> {
+    private static final String TAG = "CD.CallHistoryLiveData";
+
+    /** The default number of call logs loaded per page. */
+    private static final int DEFAULT_PAGE_SIZE = 50;
     private static final String[] EMPTY_STRING_ARRAY = new String[0];
+    /** Rows sharing the same date are ordered by id, so each row has a stable position. */
+    private static final String SORT_ORDER =
+            CallLog.Calls.DATE + " DESC, " + CallLog.Calls._ID + " DESC";
 
     @IntDef({
             CALL_TYPE_ALL,
@@ -55,65 +77,356 @@ public class CallHistoryLiveData extends AsyncQueryLiveData<List<PhoneCallLog>>
         int VOICEMAIL_TYPE = CallLog.Calls.VOICEMAIL_TYPE;
     }
 
+    /** IntDef for the kind of query issued to the call log provider. */
+    @IntDef({
+            QueryType.RELOAD,
+            QueryType.NEWER,
+            QueryType.OLDER,
+    })
+    private @interface QueryType {
+        /** Reloads all the call logs loaded so far. */
+        int RELOAD = 0;
+
+        /** Loads the call logs newer than the most recent loaded one. */
+        int NEWER = 1;
+
+        /** Loads the next page of call logs older than the oldest loaded one. */
+        int OLDER = 2;
+    }
+
     /**
      * Creates a new instance of call history live data which loads all types of call history
-     * with a limit of 100 logs.
+     * page by page.
      */
     public static CallHistoryLiveData newInstance(Context context) {
-        return newInstance(context, CALL_TYPE_ALL, DEFAULT_CALL_LOG_LIMIT);
+        return new CallHistoryLiveData(context, CALL_TYPE_ALL, DEFAULT_PAGE_SIZE,
+                /* isPaged= */true, /* observableAsyncQuery= */null);
     }
 
     /**
      * Returns a new instance of last call live data.
      */
     public static CallHistoryLiveData newLastCallLiveData(Context context) {
-        return newInstance(context, CALL_TYPE_ALL, 1);
+        return new CallHistoryLiveData(context, CALL_TYPE_ALL, /* pageSize= */1,
+                /* isPaged= */false, /* observableAsyncQuery= */null);
+    }
+
+    private final Context mContext;
+    private final int mCallType;
+    private final int mPageSize;
+    private final boolean mIsPaged;
+    private final ObservableAsyncQuery mObservableAsyncQuery;
+
+    /** The call logs loaded so far, updated on the main thread. */
+    private Page mPage = Page.EMPTY;
+    /**
+     * The latest page merged on the worker thread. It is only accessed on the worker thread and
+     * runs ahead of {@link #mPage} while a merged page is being posted.
+     */
+    private Page mWorkerPage = Page.EMPTY;
+    /** The page the query in flight is based on. */
+    private Page mQueryPage = Page.EMPTY;
+    @QueryType
+    private int mQueryType = QueryType.RELOAD;
+    private int mQueryLimit;
+    private boolean mReloadRequested;
+    private boolean mLoadMoreRequested;
+    private boolean mIsLoadingMore;
+
+    /**
+     * Creates the live data. Tests pass in the {@code observableAsyncQuery} and run the queries
+     * through {@link #getQueryParam()} and {@link #onQueryFinished(Cursor)} themselves.
+     */
+    @VisibleForTesting
+    CallHistoryLiveData(Context context, int callType, int pageSize, boolean isPaged,
+            @Nullable ObservableAsyncQuery observableAsyncQuery) {
+        mContext = context;
+        mCallType = callType;
+        mPageSize = Math.max(pageSize, 1);
+        mIsPaged = isPaged;
+        mObservableAsyncQuery = observableAsyncQuery != null ? observableAsyncQuery
+                : new ObservableAsyncQuery(this::getQueryParam, context.getContentResolver(),
+                        this::onQueryFinished);
     }
 
-    private static CallHistoryLiveData newInstance(Context context, int callType, int limit) {
+    @Override
+    protected void onActive() {
+        super.onActive();
+        // Changes are not observed while inactive, reload to pick up deletions as well.
+        mReloadRequested = true;
+        mObservableAsyncQuery.startQuery();
+    }
+
+    @Override
+    protected void onInactive() {
+        super.onInactive();
+        mObservableAsyncQuery.stopQuery();
+        mIsLoadingMore = false;
+    }
+
+    /**
+     * Loads the next page of older call logs. It is a no-op if all call logs have been loaded or
+     * a page is being loaded.
+     */
+    public void loadMore() {
+        if (!mIsPaged || !mPage.mHasMore || mIsLoadingMore || mPage.mCallLogs.isEmpty()
+                || !hasActiveObservers()) {
+            return;
+        }
+        L.d(TAG, "loadMore, %d rows loaded", mPage.mRowCount);
+        mIsLoadingMore = true;
+        mLoadMoreRequested = true;
+        mObservableAsyncQuery.startQuery();
+    }
+
+    /** Returns whether there are older call logs that have not been loaded yet. */
+    public boolean hasMore() {
+        return mPage.mHasMore;
+    }
+
+    @VisibleForTesting
+    @Nullable
+    QueryParam getQueryParam() {
         StringBuilder where = new StringBuilder();
         List<String> selectionArgs = new ArrayList<>();
-        limit = limit < 0 ? 0 : limit;
 
-        if (callType != CALL_TYPE_ALL) {
+        if (mCallType != CALL_TYPE_ALL) {
             // add a filter for call type
             where.append(String.format("(%s = ?)", CallLog.Calls.TYPE));
-            selectionArgs.add(Integer.toString(callType));
+            selectionArgs.add(Integer.toString(mCallType));
         }
-        String selection = where.length() > 0 ? where.toString() : null;
+
+        Page page = mPage;
+        if (mLoadMoreRequested && !page.mCallLogs.isEmpty()) {
+            // Start from the newest row of the last call log, so it is rebuilt with its older rows.
+            mQueryType = QueryType.OLDER;
+            appendRowFilter(where, selectionArgs, "<", "<=", page.mTailDate, page.mTailId);
+            mQueryLimit = mPageSize + page.mTailRowCount;
+        } else if (mIsPaged && !mReloadRequested && !page.mCallLogs.isEmpty()) {
+            mQueryType = QueryType.NEWER;
+            appendRowFilter(where, selectionArgs, ">", ">", page.mNewestDate, page.mNewestId);
+            mQueryLimit = mPageSize;
+        } else {
+            mQueryType = QueryType.RELOAD;
+            mQueryLimit = mIsPaged ? Math.max(page.mRowCount, mPageSize) : mPageSize;
+        }
+        mQueryPage = page;
+        // A query in flight is cancelled by a new one.
+        mIsLoadingMore = mQueryType == QueryType.OLDER;
+        mLoadMoreRequested = false;
+        mReloadRequested = false;
 
         Uri uri = CallLog.Calls.CONTENT_URI.buildUpon()
-                .appendQueryParameter(CallLog.Calls.LIMIT_PARAM_KEY,
-                        Integer.toString(limit))
+                .appendQueryParameter(CallLog.Calls.LIMIT_PARAM_KEY, Integer.toString(mQueryLimit))
                 .build();
-        QueryParam queryParam = new QueryParam(
+        String selection = where.length() > 0 ? where.toString() : null;
+        return new QueryParam(
                 uri,
                 null,
                 selection,
                 selectionArgs.toArray(EMPTY_STRING_ARRAY),
-                CallLog.Calls.DEFAULT_SORT_ORDER);
-        return new CallHistoryLiveData(context, queryParam);
+                SORT_ORDER);
     }
 
-    private final Context mContext;
-    private CallHistoryLiveData(Context context, QueryParam queryParam) {
-        super(context, QueryParam.of(queryParam));
-        mContext = context;
+    /**
+     * Appends a filter for the rows before or after the given row in {@link #SORT_ORDER}. Rows
+     * sharing the date of the given row are compared by id.
+     */
+    private void appendRowFilter(StringBuilder where, List<String> selectionArgs,
+            String dateOperator, String idOperator, long date, long id) {
+        if (where.length() > 0) {
+            where.append(" AND ");
+        }
+        where.append(String.format("(%1$s %2$s ? OR (%1$s = ? AND %3$s %4$s ?))",
+                CallLog.Calls.DATE, dateOperator, CallLog.Calls._ID, idOperator));
+        selectionArgs.add(Long.toString(date));
+        selectionArgs.add(Long.toString(date));
+        selectionArgs.add(Long.toString(id));
     }
 
-    @Override
-    protected List<PhoneCallLog> convertToEntity(Cursor cursor) {
+    @VisibleForTesting
+    void onQueryFinished(@Nullable Cursor cursor) {
+        @QueryType int queryType = mQueryType;
+        int limit = mQueryLimit;
+        Page queryPage = mQueryPage;
+        WorkerExecutor.getInstance().getSingleThreadExecutor().execute(() -> {
+            Page page;
+            try {
+                page = loadPage(cursor, queryType, limit, queryPage);
+            } finally {
+                if (cursor != null) {
+                    cursor.close();
+                }
+            }
+            if (page != null) {
+                mWorkerPage = page;
+            }
+            mContext.getMainExecutor().execute(() -> onPageLoaded(queryType, page));
+        });
+    }
+
+    private void onPageLoaded(@QueryType int queryType, @Nullable Page page) {
+        if (queryType == QueryType.OLDER) {
+            mIsLoadingMore = false;
+        }
+        if (page == null) {
+            // The rows can't be merged into the loaded call logs, reload everything loaded so far.
+            mReloadRequested = true;
+            mObservableAsyncQuery.startQuery();
+            return;
+        }
+        if (page == mPage) {
+            return;
+        }
+        mPage = page;
+        setValue(page.mCallLogs);
+    }
+
+    /**
+     * Converts the rows and merges them into the loaded call logs on the worker thread. Returns
+     * {@code null} if a reload is required instead.
+     */
+    @WorkerThread
+    @Nullable
+    private Page loadPage(@Nullable Cursor cursor, @QueryType int queryType, int limit,
+            Page queryPage) {
+        if (queryType != QueryType.RELOAD && queryPage != mWorkerPage) {
+            // The query was issued before the previous result was merged.
+            L.d(TAG, "query type: %d is stale", queryType);
+            return null;
+        }
+        if (cursor == null) {
+            return queryType == QueryType.RELOAD ? Page.EMPTY : mWorkerPage;
+        }
+
+        Page rows = convertToPage(cursor);
+        L.d(TAG, "query type: %d, rows: %d", queryType, rows.mRowCount);
+        switch (queryType) {
+            case QueryType.NEWER:
+                if (rows.mRowCount == 0 || rows.mRowCount >= limit) {
+                    // Not an insertion, or there might be newer rows than the limit.
+                    return null;
+                }
+                return mergeNewer(rows, queryPage);
+            case QueryType.OLDER:
+                if (rows.mRowCount == 0 || rows.mNewestId != queryPage.mTailId) {
+                    // The last loaded call log has changed.
+                    return null;
+                }
+                return mergeOlder(rows, queryPage, limit);
+            case QueryType.RELOAD:
+            default:
+                rows.mHasMore = rows.mRowCount >= limit;
+                return rows;
+        }
+    }
+
+    private static Page mergeNewer(Page newer, Page loaded) {
+        List<PhoneCallLog> callLogs = new ArrayList<>(newer.mCallLogs);
+        // Merge into the newly loaded log, emitted logs can be read by other threads.
+        boolean isMerged = callLogs.get(callLogs.size() - 1).merge(loaded.mCallLogs.get(0));
+        callLogs.addAll(loaded.mCallLogs.subList(isMerged ? 1 : 0, loaded.mCallLogs.size()));
+
+        Page page = new Page(callLogs, newer.mRowCount + loaded.mRowCount, loaded.mHasMore);
+        page.mNewestDate = newer.mNewestDate;
+        page.mNewestId = newer.mNewestId;
+        if (isMerged && loaded.mCallLogs.size() == 1) {
+            page.setTail(newer.mTailDate, newer.mTailId,
+                    newer.mTailRowCount + loaded.mTailRowCount);
+        } else {
+            page.setTail(loaded.mTailDate, loaded.mTailId, loaded.mTailRowCount);
+        }
+        return page;
+    }
+
+    private static Page mergeOlder(Page older, Page loaded, int limit) {
+        // The first log of the older rows replaces the last loaded one.
+        List<PhoneCallLog> callLogs = new ArrayList<>(
+                loaded.mCallLogs.subList(0, loaded.mCallLogs.size() - 1));
+        boolean isReplaced = callLogs.isEmpty();
+        callLogs.addAll(older.mCallLogs);
+
+        Page page = new Page(callLogs, loaded.mRowCount - loaded.mTailRowCount + older.mRowCount,
+                older.mRowCount >= limit);
+        page.mNewestDate = isReplaced ? older.mNewestDate : loaded.mNewestDate;
+        page.mNewestId = isReplaced ? older.mNewestId : loaded.mNewestId;
+        page.setTail(older.mTailDate, older.mTailId, older.mTailRowCount);
+        return page;
+    }
+
+    /** Converts the cursor rows to merged {@link PhoneCallLog}s. */
+    @WorkerThread
+    @NonNull
+    private Page convertToPage(@NonNull Cursor cursor) {
         List<PhoneCallLog> resultList = new ArrayList<>();
+        int dateColumn = cursor.getColumnIndex(CallLog.Calls.DATE);
+        int idColumn = cursor.getColumnIndex(CallLog.Calls._ID);
+        long newestDate = 0;
+        long newestId = 0;
+        long tailDate = 0;
+        long tailId = 0;
+        int tailRowCount = 0;
 
         while (cursor.moveToNext()) {
+            long date = cursor.getLong(dateColumn);
+            long id = cursor.getLong(idColumn);
+            if (cursor.isFirst()) {
+                newestDate = date;
+                newestId = id;
+            }
+
             PhoneCallLog phoneCallLog = PhoneCallLog.fromCursor(mContext, cursor);
             PhoneCallLog previousCallLog = resultList.isEmpty() ? null : resultList.get(
                     resultList.size() - 1);
 
             if (previousCallLog == null || !previousCallLog.merge(phoneCallLog)) {
                 resultList.add(phoneCallLog);
+                tailDate = date;
+                tailId = id;
+                tailRowCount = 0;
             }
+            tailRowCount++;
+        }
+
+        Page page = new Page(resultList, cursor.getCount(), /* hasMore= */false);
+        page.mNewestDate = newestDate;
+        page.mNewestId = newestId;
+        page.setTail(tailDate, tailId, tailRowCount);
+        return page;
+    }
+
+    /**
+     * The loaded call logs and their boundaries in the call log provider. A row is located by its
+     * date and id as rows are sorted by {@link #SORT_ORDER}. A page is not modified once it is
+     * posted to the main thread.
+     */
+    private static class Page {
+        private static final Page EMPTY = new Page(Collections.emptyList(), 0,
+                /* hasMore= */false);
+
+        private final List<PhoneCallLog> mCallLogs;
+        /** The number of rows merged into {@link #mCallLogs}. */
+        private final int mRowCount;
+        private boolean mHasMore;
+        /** The date and id of the newest row. */
+        private long mNewestDate;
+        private long mNewestId;
+        /** The date and id of the newest row merged into the last call log. */
+        private long mTailDate;
+        private long mTailId;
+        /** The number of rows merged into the last call log. */
+        private int mTailRowCount;
+
+        private Page(List<PhoneCallLog> callLogs, int rowCount, boolean hasMore) {
+            mCallLogs = Collections.unmodifiableList(callLogs);
+            mRowCount = rowCount;
+            mHasMore = hasMore;
+        }
+
+        private void setTail(long tailDate, long tailId, int tailRowCount) {
+            mTailDate = tailDate;
+            mTailId = tailId;
+            mTailRowCount = tailRowCount;
         }
-        return resultList;
     }
 }
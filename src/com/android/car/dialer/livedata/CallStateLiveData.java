@@ -21,6 +21,8 @@ import android.telecom.InCallService;
 
 import androidx.lifecycle.LiveData;
 
+import com.android.car.dialer.telecom.CallEventHub;
+
 import java.util.List;
 
 /**
@@ -39,13 +41,13 @@ public class CallStateLiveData extends LiveData<Integer> {
         super.onActive();
 
         setValue(mTelecomCall.getState());
-        mTelecomCall.registerCallback(mCallback);
+        CallEventHub.registerCallback(mTelecomCall, mCallback);
     }
 
     @Override
     protected void onInactive() {
         super.onInactive();
-        mTelecomCall.unregisterCallback(mCallback);
+        CallEventHub.unregisterCallback(mTelecomCall, mCallback);
     }
 
     private Call.Callback mCallback = new Call.Callback() {
@@ -24,14 +24,14 @@ import android.app.PendingIntent;
 import android.content.Context;
 import android.content.Intent;
 import android.graphics.drawable.Icon;
+import android.os.Trace;
 import android.telecom.Call;
 import android.text.TextUtils;
 
-import androidx.annotation.StringRes;
-
 import com.android.car.dialer.Constants;
 import com.android.car.dialer.R;
 import com.android.car.dialer.log.L;
+import com.android.car.dialer.telecom.CallEventHub;
 import com.android.car.dialer.ui.activecall.InCallActivity;
 import com.android.car.telephony.common.CallDetail;
 
@@ -81,6 +81,9 @@ public final class InCallNotificationController {
     private final Context mContext;
     private final NotificationManager mNotificationManager;
     private final Notification.Builder mNotificationBuilder;
+    // Resolved once so that showing the notification for a ringing call doesn't look them up.
+    private final CharSequence mAnswerCallText;
+    private final CharSequence mDeclineCallText;
     private CompletableFuture<Void> mNotificationFuture;
 
     @TargetApi(26)
@@ -107,6 +110,8 @@ public final class InCallNotificationController {
                 .setCategory(Notification.CATEGORY_CALL)
                 .setOngoing(true)
                 .setAutoCancel(false);
+        mAnswerCallText = mContext.getString(R.string.answer_call);
+        mDeclineCallText = mContext.getString(R.string.decline_call);
     }
 
 
@@ -114,27 +119,33 @@ public final class InCallNotificationController {
     @TargetApi(26)
     public void showInCallNotification(Call call) {
         L.d(TAG, "showInCallNotification");
-
-        if (mNotificationFuture != null) {
-            mNotificationFuture.cancel(true);
+        String number;
+        String tag;
+        Trace.beginSection("CD.showInCallNotification");
+        try {
+            if (mNotificationFuture != null) {
+                mNotificationFuture.cancel(true);
+            }
+
+            CallDetail callDetail = CallEventHub.getCallDetail(call);
+            number = callDetail.getNumber();
+            tag = call.getDetails().getTelecomCallId();
+            mNotificationBuilder
+                    .setLargeIcon((Icon) null)
+                    .setContentTitle(number)
+                    .setActions(
+                            getAction(call, mAnswerCallText,
+                                    NotificationService.ACTION_ANSWER_CALL),
+                            getAction(call, mDeclineCallText,
+                                    NotificationService.ACTION_DECLINE_CALL));
+            mNotificationManager.notify(
+                    tag,
+                    NOTIFICATION_ID,
+                    mNotificationBuilder.build());
+        } finally {
+            Trace.endSection();
         }
 
-        CallDetail callDetail = CallDetail.fromTelecomCallDetail(call.getDetails());
-        String number = callDetail.getNumber();
-        String tag = call.getDetails().getTelecomCallId();
-        mNotificationBuilder
-                .setLargeIcon((Icon) null)
-                .setContentTitle(number)
-                .setActions(
-                        getAction(call, R.string.answer_call,
-                                NotificationService.ACTION_ANSWER_CALL),
-                        getAction(call, R.string.decline_call,
-                                NotificationService.ACTION_DECLINE_CALL));
-        mNotificationManager.notify(
-                tag,
-                NOTIFICATION_ID,
-                mNotificationBuilder.build());
-
         mNotificationFuture = NotificationUtils.getDisplayNameAndRoundedAvatar(mContext, number)
                 .thenAcceptAsync((pair) -> {
                     // Check that the notification hasn't already been dismissed
@@ -160,9 +171,7 @@ public final class InCallNotificationController {
         }
     }
 
-    private Notification.Action getAction(Call call, @StringRes int actionText,
-            String intentAction) {
-        CharSequence text = mContext.getString(actionText);
+    private Notification.Action getAction(Call call, CharSequence text, String intentAction) {
         PendingIntent intent = PendingIntent.getBroadcast(
                 mContext,
                 0,
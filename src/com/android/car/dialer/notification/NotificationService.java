@@ -19,7 +19,6 @@ package com.android.car.dialer.notification;
 import android.content.Context;
 import android.content.Intent;
 import android.telecom.Call;
-import android.text.TextUtils;
 
 import androidx.core.app.JobIntentService;
 
@@ -27,8 +26,6 @@ import com.android.car.dialer.Constants;
 import com.android.car.dialer.telecom.UiCallManager;
 import com.android.car.telephony.common.TelecomUtils;
 
-import java.util.List;
-
 /**
  * A {@link JobIntentService} that is used to handle actions from notifications to:
  * <ul><li>answer or inject an incoming call.
@@ -83,24 +80,16 @@ public class NotificationService extends JobIntentService {
     }
 
     private void answerCall(String callId) {
-        List<Call> callList = UiCallManager.get().getCallList();
-        for (Call call : callList) {
-            if (call.getDetails() != null
-                    && TextUtils.equals(call.getDetails().getTelecomCallId(), callId)) {
-                call.answer(/* videoState= */0);
-                return;
-            }
+        Call call = UiCallManager.get().getCall(callId);
+        if (call != null) {
+            call.answer(/* videoState= */0);
         }
     }
 
     private void declineCall(String callId) {
-        List<Call> callList = UiCallManager.get().getCallList();
-        for (Call call : callList) {
-            if (call.getDetails() != null
-                    && TextUtils.equals(call.getDetails().getTelecomCallId(), callId)) {
-                call.reject(false, /* textMessage= */"");
-                return;
-            }
+        Call call = UiCallManager.get().getCall(callId);
+        if (call != null) {
+            call.reject(false, /* textMessage= */"");
         }
     }
 }
@@ -18,21 +18,16 @@ package com.android.car.dialer.notification;
 
 import android.content.Context;
 import android.graphics.Bitmap;
-import android.graphics.Canvas;
 import android.graphics.drawable.Icon;
 import android.net.Uri;
 
 import androidx.annotation.Nullable;
-import androidx.core.graphics.drawable.RoundedBitmapDrawable;
-import androidx.core.graphics.drawable.RoundedBitmapDrawableFactory;
 import androidx.core.util.Pair;
 
-import com.android.car.apps.common.LetterTileDrawable;
 import com.android.car.dialer.R;
+import com.android.car.dialer.ui.common.AvatarCache;
 import com.android.car.telephony.common.TelecomUtils;
 
-import java.io.FileNotFoundException;
-import java.io.InputStream;
 import java.util.concurrent.CompletableFuture;
 
 /** Util class that shares common functionality for notifications. */
@@ -56,43 +51,13 @@ final class NotificationUtils {
     }
 
     static Icon loadContactAvatar(Context context, @Nullable Uri avatarUri, int avatarSize) {
-        if (avatarUri == null) {
-            return null;
-        }
-
-        try {
-            InputStream input = context.getContentResolver().openInputStream(avatarUri);
-            if (input == null) {
-                return null;
-            }
-            RoundedBitmapDrawable roundedBitmapDrawable = RoundedBitmapDrawableFactory.create(
-                    context.getResources(), input);
-            return createFromRoundedBitmapDrawable(context, roundedBitmapDrawable, avatarSize);
-        } catch (FileNotFoundException e) {
-            // No-op
-        }
-        return null;
+        Bitmap avatar = AvatarCache.get(context).getAvatar(avatarUri, avatarSize,
+                AvatarCache.Shape.ROUNDED);
+        return avatar == null ? null : Icon.createWithBitmap(avatar);
     }
 
     private static Icon createLetterTile(Context context, String displayName, int avatarSize) {
-        LetterTileDrawable letterTileDrawable = TelecomUtils.createLetterTile(context, displayName);
-        RoundedBitmapDrawable roundedBitmapDrawable = RoundedBitmapDrawableFactory.create(
-                context.getResources(), letterTileDrawable.toBitmap(avatarSize));
-        return createFromRoundedBitmapDrawable(context, roundedBitmapDrawable, avatarSize);
-    }
-
-    private static Icon createFromRoundedBitmapDrawable(Context context,
-            RoundedBitmapDrawable roundedBitmapDrawable, int avatarSize) {
-        float radiusPercent = context.getResources()
-                .getFloat(R.dimen.contact_avatar_corner_radius_percent);
-        float radius = avatarSize * radiusPercent;
-        roundedBitmapDrawable.setCornerRadius(radius);
-
-        final Bitmap result = Bitmap.createBitmap(avatarSize, avatarSize,
-                Bitmap.Config.ARGB_8888);
-        final Canvas canvas = new Canvas(result);
-        roundedBitmapDrawable.setBounds(0, 0, canvas.getWidth(), canvas.getHeight());
-        roundedBitmapDrawable.draw(canvas);
-        return Icon.createWithBitmap(result);
+        return Icon.createWithBitmap(AvatarCache.get(context).getLetterTile(displayName,
+                avatarSize, AvatarCache.Shape.ROUNDED));
     }
 }
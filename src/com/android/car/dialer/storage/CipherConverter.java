@@ -19,6 +19,7 @@ package com.android.car.dialer.storage;
 import android.security.keystore.KeyGenParameterSpec;
 import android.security.keystore.KeyProperties;
 import android.util.Log;
+import android.util.LruCache;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
@@ -28,6 +29,7 @@ import androidx.room.TypeConverter;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.security.InvalidAlgorithmParameterException;
 import java.security.InvalidKeyException;
 import java.security.KeyStore;
@@ -48,11 +50,23 @@ import javax.crypto.spec.GCMParameterSpec;
 /**
  * A converter that does the encryption and decryption using android KeyStore system. See
  * https://developer.android.com/training/articles/keystore
+ *
+ * <p>The secret key is loaded from the KeyStore once and shared by all instances. Decrypted values
+ * are cached by their encrypted bytes, so reloading the favorite table doesn't go through the
+ * KeyStore for every row.
  */
 public class CipherConverter {
     private static final String TAG = "CD.CipherConverter";
     private static final String KEY_STORE_ALIAS = "cd-cipher-converter";
     private static final String ANDROID_KEY_STORE = "AndroidKeyStore";
+    private static final int MAX_DECRYPTION_CACHE_SIZE = 200;
+
+    private static final Object sLock = new Object();
+    private static SecretKey sSecretKey;
+    private static final LruCache<ByteBuffer, CipherWrapper<String>> sDecryptionCache =
+            new LruCache<>(MAX_DECRYPTION_CACHE_SIZE);
+    /** {@link Cipher} is not thread safe, Room can convert on different threads. */
+    private static final ThreadLocal<Cipher> sCipher = new ThreadLocal<>();
 
     /**
      * Decryption.
@@ -71,9 +85,18 @@ public class CipherConverter {
             return null;
         }
 
+        ByteBuffer cacheKey = ByteBuffer.wrap(encryptedData.clone());
+        CipherWrapper<String> cachedResult = sDecryptionCache.get(cacheKey);
+        if (cachedResult != null) {
+            return cachedResult;
+        }
+
         try {
-            KeyStore ks = getKeyStore();
-            SecretKey decryptionKey = (SecretKey) ks.getKey(KEY_STORE_ALIAS, null);
+            SecretKey decryptionKey = getSecretKey();
+            if (decryptionKey == null) {
+                Log.e(TAG, "No key to decrypt with.");
+                return null;
+            }
 
             Cipher cipher = getCipherInstance();
             ByteArrayInputStream byteArrayInputStream = new ByteArrayInputStream(encryptedData);
@@ -89,11 +112,15 @@ public class CipherConverter {
             cipher.init(Cipher.DECRYPT_MODE, decryptionKey, new GCMParameterSpec(128, iv));
             byte[] decryptionResult = cipher.doFinal(encryptedPhoneNumber);
             String decryptString = new String(decryptionResult, "UTF-8");
-            return new CipherWrapper(decryptString);
+            CipherWrapper<String> result = new CipherWrapper<>(decryptString);
+            sDecryptionCache.put(cacheKey, result);
+            return result;
+        } catch (InvalidKeyException e) {
+            Log.e(TAG, e.toString());
+            clearSecretKey();
         } catch (KeyStoreException | IOException | CertificateException | NoSuchAlgorithmException
                 | UnrecoverableKeyException | NoSuchPaddingException | BadPaddingException
-                | IllegalBlockSizeException | InvalidKeyException
-                | InvalidAlgorithmParameterException e) {
+                | IllegalBlockSizeException | InvalidAlgorithmParameterException e) {
             Log.e(TAG, e.toString());
         }
         return null;
@@ -110,22 +137,7 @@ public class CipherConverter {
     @TypeConverter
     public byte[] encrypt(CipherWrapper<String> stringCipherWrapper) {
         try {
-            KeyStore ks = getKeyStore();
-            SecretKey secretKey;
-            if (ks.containsAlias(KEY_STORE_ALIAS)) {
-                secretKey = (SecretKey) ks.getKey(KEY_STORE_ALIAS, null);
-            } else {
-                KeyGenerator kpg = KeyGenerator.getInstance(KeyProperties.KEY_ALGORITHM_AES,
-                        ANDROID_KEY_STORE);
-                KeyGenParameterSpec keyGenParameterSpec = new KeyGenParameterSpec.Builder(
-                        KEY_STORE_ALIAS,
-                        KeyProperties.PURPOSE_ENCRYPT | KeyProperties.PURPOSE_DECRYPT)
-                        .setBlockModes(KeyProperties.BLOCK_MODE_GCM)
-                        .setEncryptionPaddings(KeyProperties.ENCRYPTION_PADDING_NONE)
-                        .build();
-                kpg.init(keyGenParameterSpec);
-                secretKey = kpg.generateKey();
-            }
+            SecretKey secretKey = getOrCreateSecretKey();
 
             Cipher cipher = getCipherInstance();
             cipher.init(Cipher.ENCRYPT_MODE, secretKey);
@@ -136,16 +148,62 @@ public class CipherConverter {
             byte[] encryptionResult = cipher.doFinal(
                     stringCipherWrapper.get().getBytes("UTF-8"));
             outputStream.write(encryptionResult);
-            return outputStream.toByteArray();
+            byte[] encryptedData = outputStream.toByteArray();
+            sDecryptionCache.put(ByteBuffer.wrap(encryptedData.clone()), stringCipherWrapper);
+            return encryptedData;
+        } catch (InvalidKeyException e) {
+            Log.e(TAG, e.toString());
+            clearSecretKey();
         } catch (KeyStoreException | IOException | CertificateException | NoSuchAlgorithmException
                 | UnrecoverableKeyException | NoSuchProviderException | NoSuchPaddingException
-                | BadPaddingException | IllegalBlockSizeException | InvalidKeyException
+                | BadPaddingException | IllegalBlockSizeException
                 | InvalidAlgorithmParameterException e) {
             Log.e(TAG, e.toString());
         }
         return new byte[0];
     }
 
+    /** Returns the cached secret key, loads it from the KeyStore if it is not loaded yet. */
+    @Nullable
+    private SecretKey getSecretKey() throws KeyStoreException, IOException,
+            CertificateException, NoSuchAlgorithmException, UnrecoverableKeyException {
+        synchronized (sLock) {
+            if (sSecretKey == null) {
+                sSecretKey = (SecretKey) getKeyStore().getKey(KEY_STORE_ALIAS, null);
+            }
+            return sSecretKey;
+        }
+    }
+
+    /** Returns the cached secret key, generates a new one if the KeyStore doesn't have one. */
+    @NonNull
+    private SecretKey getOrCreateSecretKey() throws KeyStoreException, IOException,
+            CertificateException, NoSuchAlgorithmException, UnrecoverableKeyException,
+            NoSuchProviderException, InvalidAlgorithmParameterException {
+        synchronized (sLock) {
+            if (getSecretKey() == null) {
+                KeyGenerator kpg = KeyGenerator.getInstance(KeyProperties.KEY_ALGORITHM_AES,
+                        ANDROID_KEY_STORE);
+                KeyGenParameterSpec keyGenParameterSpec = new KeyGenParameterSpec.Builder(
+                        KEY_STORE_ALIAS,
+                        KeyProperties.PURPOSE_ENCRYPT | KeyProperties.PURPOSE_DECRYPT)
+                        .setBlockModes(KeyProperties.BLOCK_MODE_GCM)
+                        .setEncryptionPaddings(KeyProperties.ENCRYPTION_PADDING_NONE)
+                        .build();
+                kpg.init(keyGenParameterSpec);
+                sSecretKey = kpg.generateKey();
+            }
+            return sSecretKey;
+        }
+    }
+
+    /** Drops the cached key so it is loaded again, e.g. after the key has been invalidated. */
+    private void clearSecretKey() {
+        synchronized (sLock) {
+            sSecretKey = null;
+        }
+    }
+
     private KeyStore getKeyStore()
             throws KeyStoreException, IOException, CertificateException, NoSuchAlgorithmException {
         KeyStore keyStore = KeyStore.getInstance(ANDROID_KEY_STORE);
@@ -155,8 +213,13 @@ public class CipherConverter {
 
     private Cipher getCipherInstance()
             throws NoSuchAlgorithmException, NoSuchPaddingException {
-        return Cipher.getInstance(
-                KeyProperties.KEY_ALGORITHM_AES + "/" + KeyProperties.BLOCK_MODE_GCM + "/"
-                        + KeyProperties.ENCRYPTION_PADDING_NONE);
+        Cipher cipher = sCipher.get();
+        if (cipher == null) {
+            cipher = Cipher.getInstance(
+                    KeyProperties.KEY_ALGORITHM_AES + "/" + KeyProperties.BLOCK_MODE_GCM + "/"
+                            + KeyProperties.ENCRYPTION_PADDING_NONE);
+            sCipher.set(cipher);
+        }
+        return cipher;
     }
 }
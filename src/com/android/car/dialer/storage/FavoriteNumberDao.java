@@ -54,6 +54,10 @@ public interface FavoriteNumberDao {
     @Delete
     void delete(FavoriteNumberEntity favoriteNumbers);
 
+    /** Delete multiple favorite number entries. */
+    @Delete
+    void deleteAll(List<FavoriteNumberEntity> favoriteNumbers);
+
     /** Delete all the favorite numbers whose account name do not match any of the devices. */
     @Query("DELETE FROM favorite_number_entity WHERE mAccountName IS NOT NULL"
             + " AND mAccountName NOT IN (:pairedDeviceAddresses)")
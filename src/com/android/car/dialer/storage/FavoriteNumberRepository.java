@@ -31,14 +31,18 @@ import androidx.lifecycle.MediatorLiveData;
 import androidx.lifecycle.MutableLiveData;
 
 import com.android.car.dialer.log.L;
+import com.android.car.dialer.telecom.PhoneNumberCache;
 import com.android.car.telephony.common.Contact;
 import com.android.car.telephony.common.I18nPhoneNumberWrapper;
 import com.android.car.telephony.common.InMemoryPhoneBook;
 import com.android.car.telephony.common.PhoneNumber;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -98,27 +102,58 @@ public class FavoriteNumberRepository {
 
     /** Add a phone number to favorite. */
     public void addToFavorite(Contact contact, PhoneNumber phoneNumber) {
-        FavoriteNumberEntity favoriteNumber = new FavoriteNumberEntity();
-        favoriteNumber.setContactId(contact.getId());
-        favoriteNumber.setContactLookupKey(contact.getLookupKey());
-        favoriteNumber.setPhoneNumber(new CipherWrapper<>(
-                phoneNumber.getRawNumber()));
-        favoriteNumber.setAccountName(phoneNumber.getAccountName());
-        favoriteNumber.setAccountType(phoneNumber.getAccountType());
-        sSerializedExecutor.execute(() -> mFavoriteNumberDao.insert(favoriteNumber));
+        addToFavorite(contact, Collections.singletonList(phoneNumber));
+    }
+
+    /**
+     * Add phone numbers of a contact to favorite. All the numbers are written in a single
+     * transaction so observers are notified once.
+     */
+    public void addToFavorite(Contact contact, Collection<PhoneNumber> phoneNumbers) {
+        List<FavoriteNumberEntity> favoriteNumbers = new ArrayList<>(phoneNumbers.size());
+        for (PhoneNumber phoneNumber : phoneNumbers) {
+            FavoriteNumberEntity favoriteNumber = new FavoriteNumberEntity();
+            favoriteNumber.setContactId(contact.getId());
+            favoriteNumber.setContactLookupKey(contact.getLookupKey());
+            favoriteNumber.setPhoneNumber(new CipherWrapper<>(
+                    phoneNumber.getRawNumber()));
+            favoriteNumber.setAccountName(phoneNumber.getAccountName());
+            favoriteNumber.setAccountType(phoneNumber.getAccountType());
+            favoriteNumbers.add(favoriteNumber);
+        }
+        if (favoriteNumbers.isEmpty()) {
+            return;
+        }
+        sSerializedExecutor.execute(() -> mFavoriteNumberDao.insertAll(favoriteNumbers));
     }
 
     /** Remove a phone number from favorite. */
     public void removeFromFavorite(Contact contact, PhoneNumber phoneNumber) {
+        removeFromFavorite(contact, Collections.singletonList(phoneNumber));
+    }
+
+    /**
+     * Remove phone numbers of a contact from favorite. All the matching entries are deleted in a
+     * single transaction so observers are notified once.
+     */
+    public void removeFromFavorite(Contact contact, Collection<PhoneNumber> phoneNumbers) {
         List<FavoriteNumberEntity> favoriteNumbers = mFavoriteNumbers.getValue();
         if (favoriteNumbers == null) {
             return;
         }
+        List<FavoriteNumberEntity> removedFavoriteNumbers = new ArrayList<>();
         for (FavoriteNumberEntity favoriteNumberEntity : favoriteNumbers) {
-            if (matches(favoriteNumberEntity, contact, phoneNumber)) {
-                sSerializedExecutor.execute(() -> mFavoriteNumberDao.delete(favoriteNumberEntity));
+            for (PhoneNumber phoneNumber : phoneNumbers) {
+                if (matches(favoriteNumberEntity, contact, phoneNumber)) {
+                    removedFavoriteNumbers.add(favoriteNumberEntity);
+                    break;
+                }
             }
         }
+        if (removedFavoriteNumbers.isEmpty()) {
+            return;
+        }
+        sSerializedExecutor.execute(() -> mFavoriteNumberDao.deleteAll(removedFavoriteNumbers));
     }
 
     /** Remove favorite entries for devices that has been unpaired. */
@@ -136,6 +171,11 @@ public class FavoriteNumberRepository {
     /**
      * Convert the {@link FavoriteNumberEntity}s to {@link Contact}s and update contact id and
      * contact lookup key for all the entities that are out of date.
+     *
+     * <p>All the favorites are resolved with one query on their lookup keys. Only the favorites
+     * whose lookup key has changed are refreshed with {@link
+     * ContactsContract.Contacts#lookupContact} and resolved with a second query on the refreshed
+     * contact ids.
      */
     private void convertToContacts(Context context, final MutableLiveData<List<Contact>> results) {
         if (mConvertAllRunnableFuture != null) {
@@ -149,12 +189,41 @@ public class FavoriteNumberRepository {
             }
 
             ContentResolver cr = context.getContentResolver();
+            List<FavoriteNumberEntity> favoriteNumbers = mFavoriteNumbers.getValue();
+            Map<FavoriteNumberEntity, Contact> contacts = new HashMap<>();
+
+            Map<String, List<FavoriteNumberEntity>> favoritesByLookupKey = new HashMap<>();
+            for (FavoriteNumberEntity favoriteNumber : favoriteNumbers) {
+                if (!TextUtils.isEmpty(favoriteNumber.getContactLookupKey())) {
+                    favoritesByLookupKey.computeIfAbsent(favoriteNumber.getContactLookupKey(),
+                            key -> new ArrayList<>()).add(favoriteNumber);
+                }
+            }
+            queryContacts(cr, ContactsContract.CommonDataKinds.Phone.LOOKUP_KEY,
+                    favoritesByLookupKey, contacts);
+
+            Map<String, List<FavoriteNumberEntity>> favoritesByContactId = new HashMap<>();
+            for (FavoriteNumberEntity favoriteNumber : favoriteNumbers) {
+                if (contacts.containsKey(favoriteNumber)) {
+                    continue;
+                }
+                Uri lookupUri = ContactsContract.Contacts.getLookupUri(
+                        favoriteNumber.getContactId(), favoriteNumber.getContactLookupKey());
+                Uri refreshedUri = ContactsContract.Contacts.lookupContact(cr, lookupUri);
+                if (refreshedUri != null) {
+                    favoritesByContactId.computeIfAbsent(
+                            String.valueOf(ContentUris.parseId(refreshedUri)),
+                            key -> new ArrayList<>()).add(favoriteNumber);
+                }
+            }
+            queryContacts(cr, ContactsContract.CommonDataKinds.Phone.CONTACT_ID,
+                    favoritesByContactId, contacts);
+
             List<FavoriteNumberEntity> outOfDateList = new ArrayList<>();
             List<Contact> favoriteContacts = new ArrayList<>();
-            List<FavoriteNumberEntity> favoriteNumbers = mFavoriteNumbers.getValue();
             for (FavoriteNumberEntity favoriteNumber : favoriteNumbers) {
-                Contact contact = lookupContact(cr, favoriteNumber);
-                if (contact != null) {
+                Contact contact = contacts.get(favoriteNumber);
+                if (contact != null && retainFavoriteNumber(contact, favoriteNumber)) {
                     favoriteContacts.add(contact);
                     if (favoriteNumber.getContactId() != contact.getId()
                             || !TextUtils.equals(favoriteNumber.getContactLookupKey(),
@@ -172,41 +241,67 @@ public class FavoriteNumberRepository {
         });
     }
 
+    /**
+     * Queries the phone rows whose {@code column} is any of the keys of {@code favorites} in a
+     * single query, and creates a {@link Contact} for each favorite number from the first row of
+     * its contact.
+     */
     @WorkerThread
-    private Contact lookupContact(ContentResolver cr, FavoriteNumberEntity favoriteNumber) {
-        Uri lookupUri = ContactsContract.Contacts.getLookupUri(
-                favoriteNumber.getContactId(), favoriteNumber.getContactLookupKey());
-        Uri refreshedUri = ContactsContract.Contacts.lookupContact(
-                mContext.getContentResolver(), lookupUri);
-        if (refreshedUri == null) {
-            return null;
+    private void queryContacts(ContentResolver cr, String column,
+            Map<String, List<FavoriteNumberEntity>> favorites,
+            Map<FavoriteNumberEntity, Contact> results) {
+        if (favorites.isEmpty()) {
+            return;
         }
-        long contactId = ContentUris.parseId(refreshedUri);
+
+        StringBuilder selection = new StringBuilder(column).append(" IN (");
+        for (int i = 0; i < favorites.size(); i++) {
+            selection.append(i == 0 ? "?" : ",?");
+        }
+        selection.append(")");
 
         try (Cursor cursor = cr.query(
                 ContactsContract.CommonDataKinds.Phone.CONTENT_URI,
                 /* projection= */null,
-                /* selection= */ ContactsContract.CommonDataKinds.Phone.CONTACT_ID + " = ?",
-                new String[]{String.valueOf(contactId)},
+                selection.toString(),
+                favorites.keySet().toArray(new String[0]),
                 /* orderBy= */null)) {
-            if (cursor != null) {
-                if (cursor.moveToFirst()) {
-                    Contact contact = Contact.fromCursor(mContext, cursor);
-                    contact.getNumbers().clear();
-                    Contact inMemoryContact = InMemoryPhoneBook.get().lookupContactByKey(
-                            contact.getLookupKey());
-                    for (PhoneNumber inMemoryPhoneNumber : inMemoryContact.getNumbers()) {
-                        if (numberMatches(favoriteNumber, inMemoryPhoneNumber)) {
-                            contact.getNumbers().add(inMemoryPhoneNumber);
-                        }
-                    }
-                    if (!contact.getNumbers().isEmpty()) {
-                        return contact;
-                    }
+            if (cursor == null) {
+                return;
+            }
+            int columnIndex = cursor.getColumnIndex(column);
+            while (cursor.moveToNext() && !favorites.isEmpty()) {
+                List<FavoriteNumberEntity> favoriteNumbers = favorites.remove(
+                        cursor.getString(columnIndex));
+                if (favoriteNumbers == null) {
+                    continue;
+                }
+                // Each favorite number gets its own instance which only holds its number.
+                for (FavoriteNumberEntity favoriteNumber : favoriteNumbers) {
+                    results.put(favoriteNumber, Contact.fromCursor(mContext, cursor));
                 }
             }
         }
-        return null;
+    }
+
+    /**
+     * Replaces the numbers of the contact with the in memory numbers matching the favorite
+     * number. Returns {@code false} if the number no longer belongs to the contact.
+     */
+    @WorkerThread
+    private boolean retainFavoriteNumber(Contact contact, FavoriteNumberEntity favoriteNumber) {
+        contact.getNumbers().clear();
+        Contact inMemoryContact = InMemoryPhoneBook.get().lookupContactByKey(
+                contact.getLookupKey());
+        if (inMemoryContact == null) {
+            return false;
+        }
+        for (PhoneNumber inMemoryPhoneNumber : inMemoryContact.getNumbers()) {
+            if (numberMatches(favoriteNumber, inMemoryPhoneNumber)) {
+                contact.getNumbers().add(inMemoryPhoneNumber);
+            }
+        }
+        return !contact.getNumbers().isEmpty();
     }
 
     private boolean matches(FavoriteNumberEntity favoriteNumber, Contact contact,
@@ -229,8 +324,8 @@ public class FavoriteNumberRepository {
             return false;
         }
 
-        I18nPhoneNumberWrapper i18nPhoneNumberWrapper = I18nPhoneNumberWrapper.Factory.INSTANCE.get(
-                mContext, favoriteNumber.getPhoneNumber().get());
+        I18nPhoneNumberWrapper i18nPhoneNumberWrapper = PhoneNumberCache.get(mContext)
+                .getI18nPhoneNumberWrapper(favoriteNumber.getPhoneNumber().get());
         return i18nPhoneNumberWrapper.equals(phoneNumber.getI18nPhoneNumberWrapper());
     }
 
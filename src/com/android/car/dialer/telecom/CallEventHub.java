@@ -0,0 +1,176 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.dialer.telecom;
+
+import android.telecom.Call;
+import android.telecom.InCallService;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import com.android.car.telephony.common.CallDetail;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Registers a single {@link Call.Callback} on a {@link Call} and dispatches its events to any
+ * number of subscribers, instead of each subscriber registering its own callback with telecom.
+ * The {@link CallDetail} of the call is converted once and shared until the details change.
+ *
+ * <p>It must be accessed on the main thread.
+ */
+@MainThread
+public final class CallEventHub {
+
+    /** The hubs of the calls which have subscribers. */
+    private static final Map<Call, CallEventHub> sCallEventHubs = new HashMap<>();
+
+    /**
+     * Subscribes the callback to the events of the call. The call is only registered with telecom
+     * for the first subscriber.
+     */
+    public static void registerCallback(Call call, Call.Callback callback) {
+        CallEventHub callEventHub = sCallEventHubs.get(call);
+        if (callEventHub == null) {
+            callEventHub = new CallEventHub();
+            sCallEventHubs.put(call, callEventHub);
+            call.registerCallback(callEventHub.mCallback);
+        }
+        callEventHub.mSubscribers.addIfAbsent(callback);
+    }
+
+    /**
+     * Unsubscribes the callback from the events of the call. The call is unregistered from
+     * telecom when its last subscriber leaves.
+     */
+    public static void unregisterCallback(Call call, Call.Callback callback) {
+        CallEventHub callEventHub = sCallEventHubs.get(call);
+        if (callEventHub == null) {
+            return;
+        }
+        callEventHub.mSubscribers.remove(callback);
+        if (callEventHub.mSubscribers.isEmpty()) {
+            sCallEventHubs.remove(call);
+            call.unregisterCallback(callEventHub.mCallback);
+        }
+    }
+
+    /**
+     * Drops the hub of a call which has been removed or destroyed, together with any subscribers
+     * which are still left, so the call is no longer referenced.
+     */
+    public static void clear(Call call) {
+        CallEventHub callEventHub = sCallEventHubs.remove(call);
+        if (callEventHub != null) {
+            callEventHub.mSubscribers.clear();
+            call.unregisterCallback(callEventHub.mCallback);
+        }
+    }
+
+    /** Drops the hubs of all calls. */
+    @VisibleForTesting
+    static void reset() {
+        for (Call call : new ArrayList<>(sCallEventHubs.keySet())) {
+            clear(call);
+        }
+    }
+
+    /**
+     * Returns the {@link CallDetail} of the call. It is shared by all callers while the call has
+     * subscribers and its details don't change.
+     */
+    @Nullable
+    public static CallDetail getCallDetail(Call call) {
+        CallEventHub callEventHub = sCallEventHubs.get(call);
+        if (callEventHub == null) {
+            return createCallDetail(call.getDetails());
+        }
+        if (callEventHub.mCallDetail == null) {
+            callEventHub.mCallDetail = createCallDetail(call.getDetails());
+        }
+        return callEventHub.mCallDetail;
+    }
+
+    @Nullable
+    private static CallDetail createCallDetail(@Nullable Call.Details details) {
+        return details != null ? CallDetail.fromTelecomCallDetail(details) : null;
+    }
+
+    private final CopyOnWriteArrayList<Call.Callback> mSubscribers = new CopyOnWriteArrayList<>();
+    private CallDetail mCallDetail;
+
+    private final Call.Callback mCallback = new Call.Callback() {
+        @Override
+        public void onStateChanged(Call call, int state) {
+            for (Call.Callback subscriber : mSubscribers) {
+                subscriber.onStateChanged(call, state);
+            }
+        }
+
+        @Override
+        public void onParentChanged(Call call, Call parent) {
+            for (Call.Callback subscriber : mSubscribers) {
+                subscriber.onParentChanged(call, parent);
+            }
+        }
+
+        @Override
+        public void onChildrenChanged(Call call, List<Call> children) {
+            for (Call.Callback subscriber : mSubscribers) {
+                subscriber.onChildrenChanged(call, children);
+            }
+        }
+
+        @Override
+        public void onDetailsChanged(Call call, Call.Details details) {
+            mCallDetail = null;
+            for (Call.Callback subscriber : mSubscribers) {
+                subscriber.onDetailsChanged(call, details);
+            }
+        }
+
+        @Override
+        public void onCannedTextResponsesLoaded(Call call, List<String> cannedTextResponses) {
+            for (Call.Callback subscriber : mSubscribers) {
+                subscriber.onCannedTextResponsesLoaded(call, cannedTextResponses);
+            }
+        }
+
+        @Override
+        public void onVideoCallChanged(Call call, InCallService.VideoCall videoCall) {
+            for (Call.Callback subscriber : mSubscribers) {
+                subscriber.onVideoCallChanged(call, videoCall);
+            }
+        }
+
+        @Override
+        public void onCallDestroyed(Call call) {
+            for (Call.Callback subscriber : mSubscribers) {
+                subscriber.onCallDestroyed(call);
+            }
+            clear(call);
+        }
+    };
+
+    private CallEventHub() {
+    }
+}
@@ -0,0 +1,257 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.dialer.telecom;
+
+import android.bluetooth.BluetoothDevice;
+import android.bluetooth.BluetoothHeadsetClient;
+import android.bluetooth.BluetoothHeadsetClientCall;
+import android.bluetooth.BluetoothProfile;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.Nullable;
+
+import com.android.car.dialer.log.L;
+import com.android.car.dialer.widget.WorkerExecutor;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keeps the state of each connected HFP device in memory: its audio state and its current calls,
+ * updated from the {@link BluetoothHeadsetClient} broadcasts, so that reading it never makes a
+ * binder call. The state is seeded once on a worker thread when the {@link
+ * BluetoothHeadsetClient} proxy connects.
+ *
+ * <p>Devices are only added when they connect. Audio and call events of devices that are not
+ * connected are ignored, so a late event can't bring back a disconnected device.
+ *
+ * <p>It must be accessed on the main thread.
+ */
+class HfpStateTracker {
+    private static final String TAG = "CD.HfpStateTracker";
+
+    /** Listens to the HFP state changes. */
+    interface Listener {
+        /**
+         * Called on the main thread when a device connects or disconnects, or when its audio or
+         * calls change.
+         */
+        void onHfpStateChanged();
+    }
+
+    /** The state of a connected HFP device. */
+    private static class DeviceState {
+        private final BluetoothDevice mDevice;
+        private int mAudioState = BluetoothHeadsetClient.STATE_AUDIO_DISCONNECTED;
+        /** The current calls of the device keyed by their id. */
+        private final Map<Integer, BluetoothHeadsetClientCall> mCalls = new HashMap<>();
+
+        private DeviceState(BluetoothDevice device) {
+            mDevice = device;
+        }
+    }
+
+    private final Context mContext;
+    private final Listener mListener;
+    private final Handler mMainThreadHandler = new Handler(Looper.getMainLooper());
+    /** The state of each connected device keyed by its address. */
+    private final Map<String, DeviceState> mDeviceStates = new HashMap<>();
+    /**
+     * The addresses of the devices whose connection changed while the state is being seeded.
+     * Their broadcasts are at least as recent as the seed, so the seed doesn't override them.
+     */
+    private final Set<String> mConnectionChangedWhileSeeding = new HashSet<>();
+    /** Identifies the latest seed, older seeds are dropped. */
+    private int mSeedGeneration;
+
+    private final BroadcastReceiver mReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            String action = intent.getAction();
+            if (BluetoothHeadsetClient.ACTION_CALL_CHANGED.equals(action)) {
+                BluetoothHeadsetClientCall call =
+                        intent.getParcelableExtra(BluetoothHeadsetClient.EXTRA_CALL);
+                if (call == null || call.getDevice() == null) {
+                    return;
+                }
+                L.d(TAG, "%s: %s", action, call);
+                if (onCallChanged(call)) {
+                    mListener.onHfpStateChanged();
+                }
+                return;
+            }
+
+            BluetoothDevice device = intent.getParcelableExtra(BluetoothDevice.EXTRA_DEVICE);
+            if (device == null) {
+                return;
+            }
+            int state = intent.getIntExtra(BluetoothProfile.EXTRA_STATE, -1);
+            L.d(TAG, "%s: %s", action, state);
+
+            if (BluetoothHeadsetClient.ACTION_CONNECTION_STATE_CHANGED.equals(action)) {
+                onConnectionStateChanged(device, state);
+            } else if (BluetoothHeadsetClient.ACTION_AUDIO_STATE_CHANGED.equals(action)) {
+                DeviceState deviceState = mDeviceStates.get(device.getAddress());
+                if (deviceState == null) {
+                    return;
+                }
+                deviceState.mAudioState = state;
+            }
+            mListener.onHfpStateChanged();
+        }
+    };
+
+    HfpStateTracker(Context context, Listener listener) {
+        mContext = context;
+        mListener = listener;
+
+        IntentFilter intentFilter = new IntentFilter();
+        intentFilter.addAction(BluetoothHeadsetClient.ACTION_CONNECTION_STATE_CHANGED);
+        intentFilter.addAction(BluetoothHeadsetClient.ACTION_AUDIO_STATE_CHANGED);
+        intentFilter.addAction(BluetoothHeadsetClient.ACTION_CALL_CHANGED);
+        mContext.registerReceiver(mReceiver, intentFilter);
+    }
+
+    /**
+     * Seeds the state from the {@link BluetoothHeadsetClient} proxy on the worker thread, or
+     * clears it if the proxy is gone. Devices already known from broadcasts are kept as they are.
+     */
+    @MainThread
+    void setHeadsetClient(@Nullable BluetoothHeadsetClient headsetClient) {
+        int seedGeneration = ++mSeedGeneration;
+        mConnectionChangedWhileSeeding.clear();
+        if (headsetClient == null) {
+            mDeviceStates.clear();
+            mListener.onHfpStateChanged();
+            return;
+        }
+
+        WorkerExecutor.getInstance().getSingleThreadExecutor().execute(() -> {
+            List<DeviceState> deviceStates = new ArrayList<>();
+            for (BluetoothDevice device : headsetClient.getConnectedDevices()) {
+                DeviceState deviceState = new DeviceState(device);
+                deviceState.mAudioState = headsetClient.getAudioState(device);
+                List<BluetoothHeadsetClientCall> calls = headsetClient.getCurrentCalls(device);
+                if (calls != null) {
+                    for (BluetoothHeadsetClientCall call : calls) {
+                        deviceState.mCalls.put(call.getId(), call);
+                    }
+                }
+                deviceStates.add(deviceState);
+            }
+            mMainThreadHandler.post(() -> {
+                if (seedGeneration != mSeedGeneration) {
+                    return;
+                }
+                for (DeviceState deviceState : deviceStates) {
+                    String address = deviceState.mDevice.getAddress();
+                    if (!mConnectionChangedWhileSeeding.contains(address)) {
+                        mDeviceStates.putIfAbsent(address, deviceState);
+                    }
+                }
+                mConnectionChangedWhileSeeding.clear();
+                mListener.onHfpStateChanged();
+            });
+        });
+    }
+
+    /** Returns whether any HFP device is connected. */
+    @MainThread
+    boolean hasConnectedDevices() {
+        return !mDeviceStates.isEmpty();
+    }
+
+    /** Returns the connected HFP device with the given address, or {@code null} if not found. */
+    @MainThread
+    @Nullable
+    BluetoothDevice getDevice(@Nullable String address) {
+        DeviceState deviceState = address != null ? mDeviceStates.get(address) : null;
+        return deviceState != null ? deviceState.mDevice : null;
+    }
+
+    /** Returns a connected HFP device that has calls, or {@code null} if there is none. */
+    @MainThread
+    @Nullable
+    BluetoothDevice getDeviceWithCalls() {
+        for (DeviceState deviceState : mDeviceStates.values()) {
+            if (!deviceState.mCalls.isEmpty()) {
+                return deviceState.mDevice;
+            }
+        }
+        return null;
+    }
+
+    /** Returns whether the audio of the given device is routed to the car. */
+    @MainThread
+    boolean isAudioConnected(BluetoothDevice device) {
+        DeviceState deviceState = mDeviceStates.get(device.getAddress());
+        return deviceState != null
+                && deviceState.mAudioState == BluetoothHeadsetClient.STATE_AUDIO_CONNECTED;
+    }
+
+    /** Returns whether the audio of any connected device is routed to the car. */
+    @MainThread
+    boolean isAudioConnected() {
+        for (DeviceState deviceState : mDeviceStates.values()) {
+            if (deviceState.mAudioState == BluetoothHeadsetClient.STATE_AUDIO_CONNECTED) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Stops tracking the state. */
+    void tearDown() {
+        mContext.unregisterReceiver(mReceiver);
+        mSeedGeneration++;
+        mDeviceStates.clear();
+    }
+
+    private void onConnectionStateChanged(BluetoothDevice device, int state) {
+        String address = device.getAddress();
+        mConnectionChangedWhileSeeding.add(address);
+        if (state == BluetoothProfile.STATE_CONNECTED) {
+            mDeviceStates.computeIfAbsent(address, key -> new DeviceState(device));
+        } else if (state == BluetoothProfile.STATE_DISCONNECTED) {
+            mDeviceStates.remove(address);
+        }
+    }
+
+    /** Returns whether the call belongs to a connected device and its state is updated. */
+    private boolean onCallChanged(BluetoothHeadsetClientCall call) {
+        DeviceState deviceState = mDeviceStates.get(call.getDevice().getAddress());
+        if (deviceState == null) {
+            return false;
+        }
+        if (call.getState() == BluetoothHeadsetClientCall.CALL_STATE_TERMINATED) {
+            deviceState.mCalls.remove(call.getId());
+        } else {
+            deviceState.mCalls.put(call.getId(), call);
+        }
+        return true;
+    }
+}
@@ -19,6 +19,7 @@ package com.android.car.dialer.telecom;
 import android.content.Context;
 import android.content.Intent;
 import android.os.Handler;
+import android.os.Trace;
 import android.telecom.Call;
 
 import androidx.annotation.MainThread;
@@ -73,16 +74,21 @@ class InCallRouter {
      * call page.
      */
     void onCallAdded(Call call) {
-        boolean isHandled = routeToActiveCallListChangedCallback(call);
-        if (isHandled) {
-            return;
-        }
+        Trace.beginSection("CD.routeCall");
+        try {
+            boolean isHandled = routeToActiveCallListChangedCallback(call);
+            if (isHandled) {
+                return;
+            }
 
-        int state = call.getState();
-        if (state == Call.STATE_RINGING) {
-            routeToNotification(call);
-        } else {
-            routeToInCallPage(call);
+            int state = call.getState();
+            if (state == Call.STATE_RINGING) {
+                routeToNotification(call);
+            } else {
+                routeToInCallPage(call);
+            }
+        } finally {
+            Trace.endSection();
         }
     }
 
@@ -124,13 +130,13 @@ class InCallRouter {
     /** Presents the ringing call in HUN. */
     private void routeToNotification(Call call) {
         mInCallNotificationController.showInCallNotification(call);
-        call.registerCallback(new Call.Callback() {
+        CallEventHub.registerCallback(call, new Call.Callback() {
             @Override
             public void onStateChanged(Call call, int state) {
                 L.d(TAG, "Ringing call state changed to %d", state);
                 routeToInCallPage(call);
                 mInCallNotificationController.cancelInCallNotification(call);
-                call.unregisterCallback(this);
+                CallEventHub.unregisterCallback(call, this);
             }
         });
     }
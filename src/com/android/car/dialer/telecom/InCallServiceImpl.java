@@ -19,12 +19,20 @@ import android.content.Intent;
 import android.os.Binder;
 import android.os.IBinder;
 import android.os.Process;
+import android.os.Trace;
 import android.telecom.Call;
 import android.telecom.CallAudioState;
 import android.telecom.InCallService;
 
+import androidx.annotation.Nullable;
+
 import com.android.car.dialer.log.L;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
@@ -41,6 +49,11 @@ public class InCallServiceImpl extends InCallService {
 
     private InCallRouter mInCallRouter;
 
+    /** The current calls keyed by their telecom call id. */
+    private final Map<String, Call> mCallsByTelecomCallId = new ConcurrentHashMap<>();
+    /** An immutable snapshot of the current calls, replaced when a call is added or removed. */
+    private volatile List<Call> mCallList = Collections.emptyList();
+
     /** Listens to active call list changes. Callbacks will be called on main thread. */
     public interface ActiveCallListChangedCallback {
 
@@ -71,27 +84,51 @@ public class InCallServiceImpl extends InCallService {
         super.onDestroy();
         mInCallRouter.stop();
         mInCallRouter = null;
+        mCallsByTelecomCallId.clear();
+        mCallList = Collections.emptyList();
     }
 
     @Override
     public void onCallAdded(Call telecomCall) {
         L.d(TAG, "onCallAdded: %s", telecomCall);
+        Trace.beginSection("CD.onCallAdded");
+        try {
+            String telecomCallId = getTelecomCallId(telecomCall);
+            if (telecomCallId != null) {
+                mCallsByTelecomCallId.put(telecomCallId, telecomCall);
+            }
+            List<Call> callList = new ArrayList<>(mCallList);
+            callList.add(telecomCall);
+            mCallList = Collections.unmodifiableList(callList);
 
-        for (Callback callback : mCallbacks) {
-            callback.onTelecomCallAdded(telecomCall);
-        }
+            for (Callback callback : mCallbacks) {
+                callback.onTelecomCallAdded(telecomCall);
+            }
 
-        mInCallRouter.onCallAdded(telecomCall);
+            mInCallRouter.onCallAdded(telecomCall);
+        } finally {
+            Trace.endSection();
+        }
     }
 
     @Override
     public void onCallRemoved(Call telecomCall) {
         L.d(TAG, "onCallRemoved: %s", telecomCall);
+
+        String telecomCallId = getTelecomCallId(telecomCall);
+        if (telecomCallId != null) {
+            mCallsByTelecomCallId.remove(telecomCallId, telecomCall);
+        }
+        List<Call> callList = new ArrayList<>(mCallList);
+        callList.remove(telecomCall);
+        mCallList = Collections.unmodifiableList(callList);
+
         for (Callback callback : mCallbacks) {
             callback.onTelecomCallRemoved(telecomCall);
         }
 
         mInCallRouter.onCallRemoved(telecomCall);
+        CallEventHub.clear(telecomCall);
     }
 
     @Override
@@ -118,6 +155,20 @@ public class InCallServiceImpl extends InCallService {
         }
     }
 
+    /**
+     * Returns the current calls. The list is an immutable snapshot which is only replaced when a
+     * call is added or removed, so it can be kept and read from any thread.
+     */
+    public List<Call> getCallList() {
+        return mCallList;
+    }
+
+    /** Returns the current call with the given telecom call id, or {@code null} if not found. */
+    @Nullable
+    public Call getCall(@Nullable String telecomCallId) {
+        return telecomCallId != null ? mCallsByTelecomCallId.get(telecomCallId) : null;
+    }
+
     public void registerCallback(Callback callback) {
         mCallbacks.add(callback);
     }
@@ -134,6 +185,12 @@ public class InCallServiceImpl extends InCallService {
         mInCallRouter.unregisterActiveCallHandler(callback);
     }
 
+    @Nullable
+    private static String getTelecomCallId(Call telecomCall) {
+        Call.Details details = telecomCall.getDetails();
+        return details != null ? details.getTelecomCallId() : null;
+    }
+
     @Deprecated
     interface Callback {
         void onTelecomCallAdded(Call telecomCall);
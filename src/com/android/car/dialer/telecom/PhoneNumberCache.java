@@ -0,0 +1,214 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.dialer.telecom;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.text.TextUtils;
+import android.util.LruCache;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import com.android.car.dialer.log.L;
+import com.android.car.telephony.common.I18nPhoneNumberWrapper;
+import com.android.car.telephony.common.TelecomUtils;
+
+import com.google.i18n.phonenumbers.PhoneNumberUtil;
+import com.google.i18n.phonenumbers.PhoneNumberUtil.PhoneNumberType;
+import com.google.i18n.phonenumbers.PhoneNumberUtil.ValidationResult;
+import com.google.i18n.phonenumbers.Phonenumber;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * A bounded LRU cache of formatted phone numbers, parsed {@link I18nPhoneNumberWrapper}s and
+ * validation results, shared by the call log, the dialpad and the in call UI. Formatting and
+ * validation depend on the locale and the SIM country, so the cache is cleared when either of
+ * them changes.
+ */
+public class PhoneNumberCache {
+    private static final String TAG = "CD.PhoneNumberCache";
+
+    /** The maximum number of phone numbers kept in each cache. */
+    private static final int MAX_CACHE_SIZE = 500;
+
+    /**
+     * The number types to check a number against, the ones most numbers are possible for first so
+     * that validation usually stops at the first type.
+     */
+    private static final PhoneNumberType[] PHONE_NUMBER_TYPES = getPhoneNumberTypes();
+
+    private static PhoneNumberCache sPhoneNumberCache;
+
+    /** Returns the singleton PhoneNumberCache for the application. */
+    public static synchronized PhoneNumberCache get(Context context) {
+        if (sPhoneNumberCache == null) {
+            sPhoneNumberCache = new PhoneNumberCache(context.getApplicationContext());
+        }
+        return sPhoneNumberCache;
+    }
+
+    private final Context mContext;
+    private final LruCache<String, String> mFormattedNumberCache = new LruCache<>(MAX_CACHE_SIZE);
+    private final LruCache<String, I18nPhoneNumberWrapper> mI18nPhoneNumberCache =
+            new LruCache<>(MAX_CACHE_SIZE);
+    private final LruCache<String, Boolean> mPossibleNumberCache = new LruCache<>(MAX_CACHE_SIZE);
+    private final BroadcastReceiver mInvalidationReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            L.d(TAG, "invalidate on %s", intent.getAction());
+            invalidate();
+        }
+    };
+    private Locale mLocale;
+
+    private PhoneNumberCache(Context applicationContext) {
+        mContext = applicationContext;
+        mLocale = Locale.getDefault();
+
+        IntentFilter intentFilter = new IntentFilter();
+        intentFilter.addAction(Intent.ACTION_LOCALE_CHANGED);
+        intentFilter.addAction(Intent.ACTION_SIM_STATE_CHANGED);
+        mContext.registerReceiver(mInvalidationReceiver, intentFilter);
+    }
+
+    /**
+     * Returns the number formatted for display, see {@link TelecomUtils#getFormattedNumber}.
+     */
+    public String getFormattedNumber(@Nullable String number) {
+        if (TextUtils.isEmpty(number)) {
+            return TelecomUtils.getFormattedNumber(mContext, number);
+        }
+
+        checkLocale();
+        String formattedNumber = mFormattedNumberCache.get(number);
+        if (formattedNumber == null) {
+            formattedNumber = TelecomUtils.getFormattedNumber(mContext, number);
+            if (formattedNumber != null) {
+                mFormattedNumberCache.put(number, formattedNumber);
+            }
+        }
+        return formattedNumber;
+    }
+
+    /**
+     * Returns the parsed {@link I18nPhoneNumberWrapper} of the number.
+     */
+    public I18nPhoneNumberWrapper getI18nPhoneNumberWrapper(@NonNull String number) {
+        checkLocale();
+        I18nPhoneNumberWrapper i18nPhoneNumberWrapper = mI18nPhoneNumberCache.get(number);
+        if (i18nPhoneNumberWrapper == null) {
+            i18nPhoneNumberWrapper = I18nPhoneNumberWrapper.Factory.INSTANCE.get(mContext, number);
+            mI18nPhoneNumberCache.put(number, i18nPhoneNumberWrapper);
+        }
+        return i18nPhoneNumberWrapper;
+    }
+
+    /**
+     * Runs basic validation check of a phone number, to verify it is the correct length in an
+     * internationalized way. Further validation on whether the number actually exists is left for
+     * the phone carrier. It can be called on any thread, so the dialpad can validate the number
+     * ahead of the call.
+     */
+    public boolean isPossibleNumber(@Nullable String number) {
+        if (TextUtils.isEmpty(number)) {
+            return false;
+        }
+
+        checkLocale();
+        Boolean isPossibleNumber = mPossibleNumberCache.get(number);
+        if (isPossibleNumber == null) {
+            isPossibleNumber = classify(TelecomUtils.createI18nPhoneNumber(mContext, number));
+            mPossibleNumberCache.put(number, isPossibleNumber);
+        }
+        return isPossibleNumber;
+    }
+
+    /** Returns the number of lookups served from the cache. */
+    public int getHitCount() {
+        return mFormattedNumberCache.hitCount() + mI18nPhoneNumberCache.hitCount()
+                + mPossibleNumberCache.hitCount();
+    }
+
+    /** Returns the number of lookups that had to format, parse or validate the number. */
+    public int getMissCount() {
+        return mFormattedNumberCache.missCount() + mI18nPhoneNumberCache.missCount()
+                + mPossibleNumberCache.missCount();
+    }
+
+    /** Clears all cached numbers. */
+    public void invalidate() {
+        mFormattedNumberCache.evictAll();
+        mI18nPhoneNumberCache.evictAll();
+        mPossibleNumberCache.evictAll();
+    }
+
+    /** Tears down the singleton PhoneNumberCache for the application. */
+    @VisibleForTesting
+    public static synchronized void tearDown() {
+        if (sPhoneNumberCache != null) {
+            sPhoneNumberCache.mContext.unregisterReceiver(sPhoneNumberCache.mInvalidationReceiver);
+            sPhoneNumberCache = null;
+        }
+    }
+
+    /** Returns whether the number is not too short nor too long for any of the number types. */
+    private static boolean classify(@Nullable Phonenumber.PhoneNumber phoneNumber) {
+        if (phoneNumber == null) {
+            return false;
+        }
+
+        PhoneNumberUtil phoneNumberUtil = PhoneNumberUtil.getInstance();
+        for (PhoneNumberType type : PHONE_NUMBER_TYPES) {
+            ValidationResult result =
+                    phoneNumberUtil.isPossibleNumberForTypeWithReason(phoneNumber, type);
+            if (result != ValidationResult.TOO_SHORT && result != ValidationResult.TOO_LONG) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static PhoneNumberType[] getPhoneNumberTypes() {
+        Set<PhoneNumberType> types = new LinkedHashSet<>(Arrays.asList(
+                PhoneNumberType.UNKNOWN,
+                PhoneNumberType.FIXED_LINE_OR_MOBILE,
+                PhoneNumberType.MOBILE,
+                PhoneNumberType.FIXED_LINE));
+        types.addAll(Arrays.asList(PhoneNumberType.values()));
+        return types.toArray(new PhoneNumberType[0]);
+    }
+
+    /**
+     * The locale change broadcast is delivered after the configuration has changed, check the
+     * default locale as well so that a lookup in between never returns a stale format.
+     */
+    private synchronized void checkLocale() {
+        Locale locale = Locale.getDefault();
+        if (!locale.equals(mLocale)) {
+            mLocale = locale;
+            invalidate();
+        }
+    }
+}
@@ -24,6 +24,7 @@ import android.content.Context;
 import android.net.Uri;
 import android.os.Bundle;
 import android.os.Parcelable;
+import android.os.Trace;
 import android.telecom.Call;
 import android.telecom.PhoneAccount;
 import android.telecom.PhoneAccountHandle;
@@ -33,7 +34,9 @@ import com.android.car.dialer.log.L;
 import com.android.internal.annotations.VisibleForTesting;
 
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 class ProjectionCallHandler implements InCallServiceImpl.ActiveCallListChangedCallback,
         CarProjectionManager.ProjectionStatusListener {
@@ -45,8 +48,17 @@ class ProjectionCallHandler implements InCallServiceImpl.ActiveCallListChangedCa
     @VisibleForTesting static final String PROJECTION_STATUS_EXTRA_DEVICE_STATE =
             "android.car.projection.DEVICE_STATE";
 
+    /** Cached for phone accounts which are not HFP client accounts. */
+    private static final String NOT_HFP_ADDRESS = "";
+
     private final CarProjectionManager mCarProjectionManager;
     private final TelecomManager mTelecomManager;
+    /**
+     * The Bluetooth address of each phone account, or {@link #NOT_HFP_ADDRESS}, so that ringing
+     * calls don't wait on a {@link TelecomManager#getPhoneAccount} binder call. The address of a
+     * registered phone account doesn't change.
+     */
+    private final Map<PhoneAccountHandle, String> mHfpAddresses = new HashMap<>();
 
     private int mProjectionState = ProjectionStatus.PROJECTION_STATE_INACTIVE;
     private List<ProjectionStatus> mProjectionDetails = Collections.emptyList();
@@ -114,17 +126,30 @@ class ProjectionCallHandler implements InCallServiceImpl.ActiveCallListChangedCa
         }
 
         PhoneAccountHandle accountHandle = details.getAccountHandle();
-        PhoneAccount account = mTelecomManager.getPhoneAccount(accountHandle);
-        if (account == null) {
+        if (accountHandle == null) {
             return null;
         }
+        String hfpAddress = mHfpAddresses.get(accountHandle);
+        if (hfpAddress == null) {
+            PhoneAccount account;
+            Trace.beginSection("CD.getPhoneAccount");
+            try {
+                account = mTelecomManager.getPhoneAccount(accountHandle);
+            } finally {
+                Trace.endSection();
+            }
+            if (account == null) {
+                return null;
+            }
 
-        Uri address = account.getAddress();
-        if (address == null || !HFP_CLIENT_SCHEME.equals(address.getScheme())) {
-            return null;
+            Uri address = account.getAddress();
+            hfpAddress = address != null && HFP_CLIENT_SCHEME.equals(address.getScheme())
+                    ? address.getSchemeSpecificPart()
+                    : NOT_HFP_ADDRESS;
+            mHfpAddresses.put(accountHandle, hfpAddress);
         }
 
-        return address.getSchemeSpecificPart();
+        return NOT_HFP_ADDRESS.equals(hfpAddress) ? null : hfpAddress;
     }
 
     private boolean shouldSuppressCallUiForBluetoothDevice(String bluetoothAddress) {
@@ -18,11 +18,12 @@ package com.android.car.dialer.telecom;
 import android.bluetooth.BluetoothAdapter;
 import android.bluetooth.BluetoothDevice;
 import android.bluetooth.BluetoothHeadsetClient;
-import android.bluetooth.BluetoothHeadsetClientCall;
 import android.bluetooth.BluetoothProfile;
+import android.content.BroadcastReceiver;
 import android.content.ComponentName;
 import android.content.Context;
 import android.content.Intent;
+import android.content.IntentFilter;
 import android.content.ServiceConnection;
 import android.net.Uri;
 import android.os.IBinder;
@@ -35,19 +36,17 @@ import android.telecom.TelecomManager;
 import android.text.TextUtils;
 import android.widget.Toast;
 
+import androidx.annotation.Nullable;
+
 import com.android.car.dialer.R;
 import com.android.car.dialer.log.L;
 import com.android.car.telephony.common.TelecomUtils;
 import com.android.internal.annotations.VisibleForTesting;
 
-import com.google.i18n.phonenumbers.PhoneNumberUtil;
-import com.google.i18n.phonenumbers.PhoneNumberUtil.PhoneNumberType;
-import com.google.i18n.phonenumbers.PhoneNumberUtil.ValidationResult;
-import com.google.i18n.phonenumbers.Phonenumber;
-
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * The entry point for all interactions between UI and telecom.
@@ -65,6 +64,14 @@ public class UiCallManager {
     private TelecomManager mTelecomManager;
     private InCallServiceImpl mInCallService;
     private BluetoothHeadsetClient mBluetoothHeadsetClient;
+    private HfpStateTracker mHfpStateTracker;
+    private final List<AudioRouteListener> mAudioRouteListeners = new CopyOnWriteArrayList<>();
+
+    /** Listens to the audio route changes. */
+    public interface AudioRouteListener {
+        /** Called on the main thread when the audio route or the supported routes might change. */
+        void onAudioRouteChanged();
+    }
 
     /**
      * Initialized a globally accessible {@link UiCallManager} which can be retrieved by
@@ -111,6 +118,12 @@ public class UiCallManager {
         intent.setAction(InCallServiceImpl.ACTION_LOCAL_BIND);
         context.bindService(intent, mInCallServiceConnection, Context.BIND_AUTO_CREATE);
 
+        mHfpStateTracker = new HfpStateTracker(mContext, this::notifyAudioRouteChanged);
+        IntentFilter phoneAccountFilter = new IntentFilter();
+        phoneAccountFilter.addAction(TelecomManager.ACTION_PHONE_ACCOUNT_REGISTERED);
+        phoneAccountFilter.addAction(TelecomManager.ACTION_PHONE_ACCOUNT_UNREGISTERED);
+        mContext.registerReceiver(mPhoneAccountReceiver, phoneAccountFilter);
+
         BluetoothAdapter adapter = BluetoothAdapter.getDefaultAdapter();
         if (adapter != null) {
             adapter.getProfileProxy(mContext, new BluetoothProfile.ServiceListener() {
@@ -118,22 +131,61 @@ public class UiCallManager {
                 public void onServiceConnected(int profile, BluetoothProfile proxy) {
                     if (profile == BluetoothProfile.HEADSET_CLIENT) {
                         mBluetoothHeadsetClient = (BluetoothHeadsetClient) proxy;
+                        if (mHfpStateTracker != null) {
+                            mHfpStateTracker.setHeadsetClient(mBluetoothHeadsetClient);
+                        }
                     }
                 }
 
                 @Override
                 public void onServiceDisconnected(int profile) {
+                    if (profile == BluetoothProfile.HEADSET_CLIENT) {
+                        mBluetoothHeadsetClient = null;
+                        if (mHfpStateTracker != null) {
+                            mHfpStateTracker.setHeadsetClient(null);
+                        }
+                    }
                 }
             }, BluetoothProfile.HEADSET_CLIENT);
         }
     }
 
+    private final BroadcastReceiver mPhoneAccountReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            L.d(TAG, "%s", intent.getAction());
+            notifyAudioRouteChanged();
+        }
+    };
+
+    private final InCallServiceImpl.Callback mInCallServiceCallback =
+            new InCallServiceImpl.Callback() {
+                @Override
+                public void onTelecomCallAdded(Call telecomCall) {
+                    notifyAudioRouteChanged();
+                }
+
+                @Override
+                public void onTelecomCallRemoved(Call telecomCall) {
+                    notifyAudioRouteChanged();
+                }
+
+                @Override
+                public void onCallAudioStateChanged(CallAudioState audioState) {
+                    notifyAudioRouteChanged();
+                }
+            };
+
     private final ServiceConnection mInCallServiceConnection = new ServiceConnection() {
 
         @Override
         public void onServiceConnected(ComponentName name, IBinder binder) {
             L.d(TAG, "onServiceConnected: %s, service: %s", name, binder);
             mInCallService = ((InCallServiceImpl.LocalBinder) binder).getService();
+            if (mInCallService != null) {
+                mInCallService.registerCallback(mInCallServiceCallback);
+            }
+            notifyAudioRouteChanged();
         }
 
         @Override
@@ -150,9 +202,14 @@ public class UiCallManager {
      */
     public void tearDown() {
         if (mInCallService != null) {
+            mInCallService.unregisterCallback(mInCallServiceCallback);
             mContext.unbindService(mInCallServiceConnection);
             mInCallService = null;
         }
+        mContext.unregisterReceiver(mPhoneAccountReceiver);
+        mHfpStateTracker.tearDown();
+        mHfpStateTracker = null;
+        mAudioRouteListeners.clear();
         // Clear out the mContext reference to avoid memory leak.
         mContext = null;
         sUiCallManager = null;
@@ -211,9 +268,20 @@ public class UiCallManager {
         return audioRouteList;
     }
 
+    /**
+     * Returns whether the current call, or the next outgoing call if there is none, goes through
+     * the HFP client. The outgoing phone account is only queried from {@link TelecomManager} when
+     * there is no call.
+     */
     public boolean isBluetoothCall() {
-        PhoneAccountHandle phoneAccountHandle =
-                mTelecomManager.getUserSelectedOutgoingPhoneAccount();
+        PhoneAccountHandle phoneAccountHandle = null;
+        List<Call> calls = getCallList();
+        if (!calls.isEmpty() && calls.get(0).getDetails() != null) {
+            phoneAccountHandle = calls.get(0).getDetails().getAccountHandle();
+        }
+        if (phoneAccountHandle == null) {
+            phoneAccountHandle = mTelecomManager.getUserSelectedOutgoingPhoneAccount();
+        }
         if (phoneAccountHandle != null && phoneAccountHandle.getComponentName() != null) {
             return HFP_CLIENT_CONNECTION_SERVICE_CLASS_NAME.equals(
                     phoneAccountHandle.getComponentName().getClassName());
@@ -224,21 +292,18 @@ public class UiCallManager {
 
     /**
      * Returns the current audio route.
-     * The available routes are defined in {@link CallAudioState}.
+     * The available routes are defined in {@link CallAudioState}. The route is read from the
+     * state kept up to date by broadcasts and {@link InCallServiceImpl}, without binder calls.
      */
     public int getAudioRoute() {
-        if (isBluetoothCall()
-                && mBluetoothHeadsetClient != null
-                && !mBluetoothHeadsetClient.getConnectedDevices().isEmpty()) {
-            // TODO: Make this handle multiple devices
-            BluetoothDevice device = mBluetoothHeadsetClient.getConnectedDevices().get(0);
-            int audioState = mBluetoothHeadsetClient.getAudioState(device);
-
-            if (audioState == BluetoothHeadsetClient.STATE_AUDIO_CONNECTED) {
-                return CallAudioState.ROUTE_BLUETOOTH;
-            } else {
-                return CallAudioState.ROUTE_EARPIECE;
-            }
+        if (isBluetoothCall() && mHfpStateTracker.hasConnectedDevices()) {
+            BluetoothDevice device = getCurrentCallDevice();
+            boolean isAudioConnected = device != null
+                    ? mHfpStateTracker.isAudioConnected(device)
+                    : mHfpStateTracker.isAudioConnected();
+            return isAudioConnected
+                    ? CallAudioState.ROUTE_BLUETOOTH
+                    : CallAudioState.ROUTE_EARPIECE;
         } else {
             CallAudioState audioState = getCallAudioStateOrNull();
             int audioRoute = audioState != null ? audioState.getRoute() : 0;
@@ -248,25 +313,61 @@ public class UiCallManager {
     }
 
     /**
-     * Re-route the audio out phone of the ongoing phone call.
+     * Re-route the audio out phone of the ongoing phone call. Only the HFP device that owns the
+     * call is re-routed.
      */
     public void setAudioRoute(@CallAudioRoute int audioRoute) {
         if (mBluetoothHeadsetClient != null && isBluetoothCall()) {
-            for (BluetoothDevice device : mBluetoothHeadsetClient.getConnectedDevices()) {
-                List<BluetoothHeadsetClientCall> currentCalls =
-                        mBluetoothHeadsetClient.getCurrentCalls(device);
-                if (currentCalls != null && !currentCalls.isEmpty()) {
-                    if (audioRoute == CallAudioState.ROUTE_BLUETOOTH) {
-                        mBluetoothHeadsetClient.connectAudio(device);
-                    } else if ((audioRoute & CallAudioState.ROUTE_WIRED_OR_EARPIECE) != 0) {
-                        mBluetoothHeadsetClient.disconnectAudio(device);
-                    }
-                }
+            BluetoothDevice device = getCurrentCallDevice();
+            L.d(TAG, "setAudioRoute %s on %s", audioRoute, device);
+            if (device == null) {
+                return;
+            }
+            if (audioRoute == CallAudioState.ROUTE_BLUETOOTH) {
+                mBluetoothHeadsetClient.connectAudio(device);
+            } else if ((audioRoute & CallAudioState.ROUTE_WIRED_OR_EARPIECE) != 0) {
+                mBluetoothHeadsetClient.disconnectAudio(device);
             }
         }
         // TODO: Implement routing audio if current call is not a bluetooth call.
     }
 
+    /**
+     * Returns the HFP device that owns the current call, or {@code null} if there is none. The
+     * HFP client phone accounts are identified by the address of their device, which is looked
+     * up first. Otherwise falls back to any device that reports calls.
+     */
+    @Nullable
+    private BluetoothDevice getCurrentCallDevice() {
+        List<Call> calls = getCallList();
+        if (!calls.isEmpty() && calls.get(0).getDetails() != null) {
+            PhoneAccountHandle phoneAccountHandle = calls.get(0).getDetails().getAccountHandle();
+            if (phoneAccountHandle != null) {
+                BluetoothDevice device = mHfpStateTracker.getDevice(phoneAccountHandle.getId());
+                if (device != null) {
+                    return device;
+                }
+            }
+        }
+        return mHfpStateTracker.getDeviceWithCalls();
+    }
+
+    /** Adds a listener to the audio route changes. */
+    public void addAudioRouteListener(AudioRouteListener listener) {
+        mAudioRouteListeners.add(listener);
+    }
+
+    /** Removes a listener to the audio route changes. */
+    public void removeAudioRouteListener(AudioRouteListener listener) {
+        mAudioRouteListeners.remove(listener);
+    }
+
+    private void notifyAudioRouteChanged() {
+        for (AudioRouteListener listener : mAudioRouteListeners) {
+            listener.onAudioRouteChanged();
+        }
+    }
+
     private CallAudioState getCallAudioStateOrNull() {
         return mInCallService != null ? mInCallService.getCallAudioState() : null;
     }
@@ -277,7 +378,7 @@ public class UiCallManager {
      * @return {@code true} if a call is successfully placed, false if number is invalid.
      */
     public boolean placeCall(String number) {
-        if (isValidNumber(number)) {
+        if (PhoneNumberCache.get(mContext).isPossibleNumber(number)) {
             Uri uri = Uri.fromParts("tel", number, null);
             L.d(TAG, "android.telecom.TelecomManager#placeCall: %s", number);
             mTelecomManager.placeCall(uri, null);
@@ -290,27 +391,6 @@ public class UiCallManager {
         }
     }
 
-    /**
-     * Runs basic validation check of a phone number, to verify it is the correct length
-     * in an internationalized way. Further validation on whether the number actually exists
-     * is left for the phone carrier.
-     */
-    private boolean isValidNumber(String number) {
-        Phonenumber.PhoneNumber phoneNumber = TelecomUtils.createI18nPhoneNumber(mContext,
-                number);
-        if (phoneNumber != null) {
-            for (PhoneNumberType type : PhoneNumberType.values()) {
-                ValidationResult result =
-                        PhoneNumberUtil.getInstance().isPossibleNumberForTypeWithReason(phoneNumber,
-                                type);
-                if (result != ValidationResult.TOO_SHORT && result != ValidationResult.TOO_LONG) {
-                    return true;
-                }
-            }
-        }
-        return false;
-    }
-
     public void callVoicemail() {
         L.d(TAG, "callVoicemail");
 
@@ -340,6 +420,12 @@ public class UiCallManager {
 
     /** Return the current active call list from delegated {@link InCallServiceImpl} */
     public List<Call> getCallList() {
-        return mInCallService == null ? Collections.emptyList() : mInCallService.getCalls();
+        return mInCallService == null ? Collections.emptyList() : mInCallService.getCallList();
+    }
+
+    /** Returns the current call with the given telecom call id, or {@code null} if not found. */
+    @Nullable
+    public Call getCall(@Nullable String telecomCallId) {
+        return mInCallService == null ? null : mInCallService.getCall(telecomCallId);
     }
 }
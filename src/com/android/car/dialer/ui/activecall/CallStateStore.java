@@ -0,0 +1,264 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.dialer.ui.activecall;
+
+import android.telecom.Call;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.Nullable;
+
+import com.android.car.dialer.telecom.CallEventHub;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keeps the current calls and their states, and notifies a {@link Listener} of what changed for
+ * which call, so that views derived from the calls only recompute what a change touches. The rank
+ * used to sort each call is cached and only recomputed when its state or parent changes.
+ *
+ * <p>Conference calls are tracked as a tree: the parent and the children of each call are kept up
+ * to date from {@link Call.Callback#onParentChanged} and {@link Call.Callback#onChildrenChanged}.
+ *
+ * <p>It must be accessed on the main thread.
+ */
+@MainThread
+class CallStateStore {
+
+    /** Listens to the changes of the calls in the store. */
+    interface Listener {
+        /** Called when a call is added to the store. */
+        void onCallAdded(Call call);
+
+        /** Called when a call is removed from the store. */
+        void onCallRemoved(Call call);
+
+        /** Called when the state of a call in the store changes. */
+        void onCallStateChanged(Call call, int state);
+
+        /** Called when the details of a call in the store change. */
+        void onCallDetailsChanged(Call call, Call.Details details);
+
+        /** Called when a call in the store joins or leaves a conference call. */
+        void onCallParentChanged(Call call, Call parent);
+
+        /** Called when the participants of a conference call in the store change. */
+        void onCallChildrenChanged(Call call, List<Call> children);
+    }
+
+    /**
+     * The call states from the lowest to the highest rank. Calls ranked higher are sorted first
+     * and states not listed are ranked lowest.
+     */
+    private static final int[] CALL_STATE_ORDER = {
+            Call.STATE_RINGING,
+            Call.STATE_DISCONNECTED,
+            Call.STATE_DISCONNECTING,
+            Call.STATE_NEW,
+            Call.STATE_CONNECTING,
+            Call.STATE_SELECT_PHONE_ACCOUNT,
+            Call.STATE_HOLDING,
+            Call.STATE_ACTIVE,
+            Call.STATE_DIALING};
+    /** The rank of each call state indexed by the state. */
+    private static final int[] CALL_STATE_RANK = createCallStateRank();
+    /** Added to the rank of calls without a parent, so they are sorted before conference calls. */
+    private static final int NO_PARENT_RANK_OFFSET = CALL_STATE_ORDER.length + 1;
+
+    /** The cached state of a call. */
+    private static class CallEntry {
+        /** The order in which the call was added to the store. */
+        private final long mOrder;
+        private int mState;
+        private Call mParent;
+        private List<Call> mChildren;
+        private int mRank;
+
+        private CallEntry(Call call, long order) {
+            mOrder = order;
+            mState = call.getState();
+            mParent = call.getParent();
+            mChildren = copyOf(call.getChildren());
+            updateRank();
+        }
+
+        private void updateRank() {
+            mRank = getRank(mState, mParent != null);
+        }
+    }
+
+    private final Listener mListener;
+    /** The cached state of each call, in the order the calls were added. */
+    private final Map<Call, CallEntry> mCallEntries = new LinkedHashMap<>();
+    private long mNextOrder;
+
+    // Reuse the same instance so the callback won't be registered more than once.
+    private final Call.Callback mCallback = new Call.Callback() {
+        @Override
+        public void onStateChanged(Call call, int state) {
+            CallEntry callEntry = mCallEntries.get(call);
+            if (callEntry == null || callEntry.mState == state) {
+                return;
+            }
+            callEntry.mState = state;
+            callEntry.updateRank();
+            mListener.onCallStateChanged(call, state);
+        }
+
+        @Override
+        public void onDetailsChanged(Call call, Call.Details details) {
+            if (mCallEntries.containsKey(call)) {
+                mListener.onCallDetailsChanged(call, details);
+            }
+        }
+
+        @Override
+        public void onParentChanged(Call call, Call parent) {
+            CallEntry callEntry = mCallEntries.get(call);
+            if (callEntry == null || callEntry.mParent == parent) {
+                return;
+            }
+            callEntry.mParent = parent;
+            callEntry.updateRank();
+            mListener.onCallParentChanged(call, parent);
+        }
+
+        @Override
+        public void onChildrenChanged(Call call, List<Call> children) {
+            CallEntry callEntry = mCallEntries.get(call);
+            if (callEntry == null) {
+                return;
+            }
+            callEntry.mChildren = copyOf(children);
+            mListener.onCallChildrenChanged(call, callEntry.mChildren);
+        }
+    };
+
+    CallStateStore(Listener listener) {
+        mListener = listener;
+    }
+
+    /**
+     * Updates the store to hold the given calls. Only the calls that are new or gone are
+     * notified.
+     */
+    void setCalls(List<Call> calls) {
+        Set<Call> callSet = new HashSet<>(calls);
+        Iterator<Call> iterator = mCallEntries.keySet().iterator();
+        while (iterator.hasNext()) {
+            Call call = iterator.next();
+            if (!callSet.contains(call)) {
+                iterator.remove();
+                CallEventHub.unregisterCallback(call, mCallback);
+                mListener.onCallRemoved(call);
+            }
+        }
+
+        for (Call call : calls) {
+            if (!mCallEntries.containsKey(call)) {
+                mCallEntries.put(call, new CallEntry(call, mNextOrder++));
+                CallEventHub.registerCallback(call, mCallback);
+                mListener.onCallAdded(call);
+            }
+        }
+    }
+
+    /** Returns the calls in the order they were added. */
+    List<Call> getCalls() {
+        return new ArrayList<>(mCallEntries.keySet());
+    }
+
+    /** Returns the last known state of the call, or {@code -1} if it is not in the store. */
+    int getState(Call call) {
+        CallEntry callEntry = mCallEntries.get(call);
+        return callEntry != null ? callEntry.mState : -1;
+    }
+
+    /**
+     * Returns the rank of the call, calls ranked higher are sorted first. Returns {@code -1} if
+     * the call is not in the store.
+     */
+    int getRank(Call call) {
+        CallEntry callEntry = mCallEntries.get(call);
+        return callEntry != null ? callEntry.mRank : -1;
+    }
+
+    /**
+     * Returns the order in which the call was added to the store, which follows the order of the
+     * telecom call list. Returns {@code -1} if the call is not in the store.
+     */
+    long getOrder(Call call) {
+        CallEntry callEntry = mCallEntries.get(call);
+        return callEntry != null ? callEntry.mOrder : -1;
+    }
+
+    /** Returns the conference call the call is part of, or {@code null} if there is none. */
+    @Nullable
+    Call getParent(Call call) {
+        CallEntry callEntry = mCallEntries.get(call);
+        return callEntry != null ? callEntry.mParent : null;
+    }
+
+    /**
+     * Returns the participants of the conference call, or an empty list if the call is not a
+     * conference call. The list is immutable.
+     */
+    List<Call> getChildren(Call call) {
+        CallEntry callEntry = mCallEntries.get(call);
+        return callEntry != null ? callEntry.mChildren : Collections.emptyList();
+    }
+
+    /** Stops listening to the calls and drops them without notifying the listener. */
+    void tearDown() {
+        for (Call call : mCallEntries.keySet()) {
+            CallEventHub.unregisterCallback(call, mCallback);
+        }
+        mCallEntries.clear();
+    }
+
+    /** Returns the rank of a call in the given state. */
+    static int getRank(int state, boolean hasParent) {
+        int rank = state >= 0 && state < CALL_STATE_RANK.length ? CALL_STATE_RANK[state] : -1;
+        return hasParent ? rank : rank + NO_PARENT_RANK_OFFSET;
+    }
+
+    private static List<Call> copyOf(@Nullable List<Call> calls) {
+        return calls == null || calls.isEmpty()
+                ? Collections.emptyList()
+                : Collections.unmodifiableList(new ArrayList<>(calls));
+    }
+
+    private static int[] createCallStateRank() {
+        int maxState = 0;
+        for (int state : CALL_STATE_ORDER) {
+            maxState = Math.max(maxState, state);
+        }
+        int[] callStateRank = new int[maxState + 1];
+        Arrays.fill(callStateRank, -1);
+        for (int rank = 0; rank < CALL_STATE_ORDER.length; rank++) {
+            callStateRank[CALL_STATE_ORDER[rank]] = rank;
+        }
+        return callStateRank;
+    }
+}
@@ -18,6 +18,7 @@ package com.android.car.dialer.ui.activecall;
 
 import android.content.Intent;
 import android.os.Bundle;
+import android.os.Trace;
 import android.telecom.Call;
 
 import androidx.core.util.Pair;
@@ -48,23 +49,28 @@ public class InCallActivity extends FragmentActivity {
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         L.d(TAG, "onCreate");
-
-        setContentView(R.layout.in_call_activity);
-
-        mOngoingCallFragment = getSupportFragmentManager().findFragmentById(
-                R.id.ongoing_call_fragment);
-        mIncomingCallFragment = getSupportFragmentManager().findFragmentById(
-                R.id.incoming_call_fragment);
-
-        mShowIncomingCall = new MutableLiveData();
-        InCallViewModel inCallViewModel = ViewModelProviders.of(this).get(InCallViewModel.class);
-        mIncomingCallLiveData = LiveDataFunctions.iff(mShowIncomingCall,
-                inCallViewModel.getIncomingCall());
-        mIncomingCallLiveData.observe(this, this::updateIncomingCallVisibility);
-        LiveDataFunctions.pair(inCallViewModel.getOngoingCallList(), mIncomingCallLiveData).observe(
-                this, this::maybeFinishActivity);
-
-        handleIntent();
+        Trace.beginSection("CD.InCallActivity.onCreate");
+        try {
+            setContentView(R.layout.in_call_activity);
+
+            mOngoingCallFragment = getSupportFragmentManager().findFragmentById(
+                    R.id.ongoing_call_fragment);
+            mIncomingCallFragment = getSupportFragmentManager().findFragmentById(
+                    R.id.incoming_call_fragment);
+
+            mShowIncomingCall = new MutableLiveData();
+            InCallViewModel inCallViewModel = ViewModelProviders.of(this).get(
+                    InCallViewModel.class);
+            mIncomingCallLiveData = LiveDataFunctions.iff(mShowIncomingCall,
+                    inCallViewModel.getIncomingCall());
+            mIncomingCallLiveData.observe(this, this::updateIncomingCallVisibility);
+            LiveDataFunctions.pair(inCallViewModel.getOngoingCallList(), mIncomingCallLiveData)
+                    .observe(this, this::maybeFinishActivity);
+
+            handleIntent();
+        } finally {
+            Trace.endSection();
+        }
     }
 
     @Override
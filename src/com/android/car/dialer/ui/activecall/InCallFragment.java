@@ -16,6 +16,7 @@
 
 package com.android.car.dialer.ui.activecall;
 
+import android.graphics.drawable.BitmapDrawable;
 import android.graphics.drawable.Drawable;
 import android.os.Bundle;
 import android.os.SystemClock;
@@ -35,15 +36,12 @@ import com.android.car.apps.common.BackgroundImageView;
 import com.android.car.apps.common.LetterTileDrawable;
 import com.android.car.dialer.R;
 import com.android.car.dialer.log.L;
+import com.android.car.dialer.telecom.PhoneNumberCache;
+import com.android.car.dialer.ui.common.AvatarCache;
 import com.android.car.dialer.ui.view.ContactAvatarOutputlineProvider;
 import com.android.car.telephony.common.CallDetail;
 import com.android.car.telephony.common.TelecomUtils;
 
-import com.bumptech.glide.Glide;
-import com.bumptech.glide.request.RequestOptions;
-import com.bumptech.glide.request.target.SimpleTarget;
-import com.bumptech.glide.request.transition.Transition;
-
 import java.util.concurrent.CompletableFuture;
 
 /** A fragment that displays information about a call with actions. */
@@ -99,14 +97,14 @@ public abstract class InCallFragment extends Fragment {
             mPhoneNumberInfoFuture.cancel(true);
         }
 
-        mNameView.setText(TelecomUtils.getFormattedNumber(getContext(), number));
+        mNameView.setText(PhoneNumberCache.get(getContext()).getFormattedNumber(number));
         mPhoneNumberView.setVisibility(View.GONE);
         mAvatarView.setImageDrawable(mDefaultAvatar);
 
         mPhoneNumberInfoFuture = TelecomUtils.getPhoneNumberInfo(getContext(), number)
-            .thenAcceptAsync((info) -> {
+            .thenComposeAsync((info) -> {
                 if (getContext() == null) {
-                    return;
+                    return CompletableFuture.completedFuture(null);
                 }
 
                 mNameView.setText(info.getDisplayName());
@@ -115,7 +113,7 @@ public abstract class InCallFragment extends Fragment {
                 if (!phoneNumberLabel.isEmpty()) {
                     phoneNumberLabel += " ";
                 }
-                phoneNumberLabel += TelecomUtils.getFormattedNumber(getContext(), number);
+                phoneNumberLabel += PhoneNumberCache.get(getContext()).getFormattedNumber(number);
                 if (!TextUtils.isEmpty(phoneNumberLabel)
                         && !phoneNumberLabel.equals(info.getDisplayName())) {
                     mPhoneNumberView.setText(phoneNumberLabel);
@@ -126,26 +124,23 @@ public abstract class InCallFragment extends Fragment {
 
                 LetterTileDrawable letterTile = TelecomUtils.createLetterTile(
                         getContext(), info.getDisplayName());
-
-                Glide.with(this)
-                        .load(info.getAvatarUri())
-                        .apply(new RequestOptions().centerCrop().error(letterTile))
-                        .into(new SimpleTarget<Drawable>() {
-                            @Override
-                            public void onResourceReady(Drawable resource,
-                                    Transition<? super Drawable> glideAnimation) {
-                                // set showAnimation to false mostly because bindUserProfileView
-                                // called several times, and we don't want the image to flicker
-                                mBackgroundImage.setBackgroundDrawable(resource);
-                                mAvatarView.setImageDrawable(resource);
+                int avatarSize = getResources().getDimensionPixelSize(
+                        R.dimen.in_call_avatar_icon_size);
+                return AvatarCache.get(getContext()).loadAvatarAsync(info.getAvatarUri(),
+                        avatarSize, AvatarCache.Shape.SQUARE)
+                        .thenAcceptAsync(bitmap -> {
+                            if (getContext() == null || !TextUtils.equals(number, mCurrentNumber)) {
+                                return;
                             }
-
-                            @Override
-                            public void onLoadFailed(Drawable errorDrawable) {
+                            if (bitmap != null) {
+                                Drawable avatar = new BitmapDrawable(getResources(), bitmap);
+                                mBackgroundImage.setBackgroundDrawable(avatar);
+                                mAvatarView.setImageDrawable(avatar);
+                            } else {
                                 mBackgroundImage.setBackgroundColor(letterTile.getColor());
                                 mAvatarView.setImageDrawable(letterTile);
                             }
-                        });
+                        }, getContext().getMainExecutor());
             }, getContext().getMainExecutor());
     }
 
@@ -36,35 +36,39 @@ import com.android.car.dialer.livedata.AudioRouteLiveData;
 import com.android.car.dialer.livedata.CallDetailLiveData;
 import com.android.car.dialer.livedata.CallStateLiveData;
 import com.android.car.dialer.log.L;
+import com.android.car.dialer.telecom.CallEventHub;
 import com.android.car.dialer.telecom.InCallServiceImpl;
 import com.android.car.telephony.common.CallDetail;
 
-import com.google.common.base.Predicate;
-import com.google.common.collect.Lists;
-
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * View model for {@link InCallActivity} and {@link OngoingCallFragment}. UI that doesn't belong to
  * in call page should use a different ViewModel.
  */
 public class InCallViewModel extends AndroidViewModel implements
-        InCallServiceImpl.ActiveCallListChangedCallback {
+        InCallServiceImpl.ActiveCallListChangedCallback, CallStateStore.Listener {
     private static final String TAG = "CD.InCallViewModel";
 
-    private final MutableLiveData<List<Call>> mCallListLiveData;
-    private final LiveData<List<Call>> mOngoingCallListLiveData;
-    private final Comparator<Call> mCallComparator;
+    private final CallStateStore mCallStateStore;
+    /** The calls which are not ringing, kept sorted by their {@link CallStateStore#getRank}. */
+    private final List<Call> mOngoingCalls = new ArrayList<>();
+    private Call mIncomingCall;
+    /** Whether the calls have been loaded from the {@link InCallServiceImpl}. */
+    private boolean mIsCallListLoaded;
+    /** The live data of each call, created when first requested and dropped with the call. */
+    private final Map<Call, CallLiveData> mCallLiveDataMap = new HashMap<>();
 
-    private final LiveData<Call> mIncomingCallLiveData;
+    private final MutableLiveData<List<Call>> mOngoingCallListLiveData;
+    private final MutableLiveData<Call> mIncomingCallLiveData;
 
     private final LiveData<CallDetail> mCallDetailLiveData;
     private final LiveData<Integer> mCallStateLiveData;
-    private final LiveData<Call> mPrimaryCallLiveData;
-    private final LiveData<Call> mSecondaryCallLiveData;
+    private final MutableLiveData<Call> mPrimaryCallLiveData;
+    private final MutableLiveData<Call> mSecondaryCallLiveData;
     private final LiveData<CallDetail> mSecondaryCallDetailLiveData;
     private final LiveData<Integer> mAudioRouteLiveData;
     private LiveData<Long> mCallConnectTimeLiveData;
@@ -78,10 +82,11 @@ public class InCallViewModel extends AndroidViewModel implements
         public void onServiceConnected(ComponentName name, IBinder binder) {
             L.d(TAG, "onServiceConnected: %s, service: %s", name, binder);
             mInCallService = ((InCallServiceImpl.LocalBinder) binder).getService();
-            for (Call call : mInCallService.getCalls()) {
-                call.registerCallback(mCallStateChangedCallback);
-            }
-            updateCallList();
+            mCallStateStore.setCalls(mInCallService.getCallList());
+            mIsCallListLoaded = true;
+            // Drops the live data requested for calls which were gone before the list loaded.
+            mCallLiveDataMap.keySet().removeIf(call -> mCallStateStore.getState(call) == -1);
+            publishCalls(/* force= */true);
             mInCallService.addActiveCallListChangedCallback(InCallViewModel.this);
         }
 
@@ -92,36 +97,17 @@ public class InCallViewModel extends AndroidViewModel implements
         }
     };
 
-    // Reuse the same instance so the callback won't be registered more than once.
-    private final Call.Callback mCallStateChangedCallback = new Call.Callback() {
-        @Override
-        public void onStateChanged(Call call, int state) {
-            // Sets value to trigger the live data for incoming call and active call list to update.
-            mCallListLiveData.setValue(mCallListLiveData.getValue());
-        }
-    };
-
     public InCallViewModel(@NonNull Application application) {
         super(application);
         mContext = application.getApplicationContext();
 
-        mCallListLiveData = new MutableLiveData<>();
-        mCallComparator = new CallComparator();
-
-        mIncomingCallLiveData = Transformations.map(mCallListLiveData,
-                callList -> firstMatch(callList,
-                        call -> call != null && call.getState() == Call.STATE_RINGING));
+        mCallStateStore = new CallStateStore(this);
 
-        mOngoingCallListLiveData = Transformations.map(mCallListLiveData,
-                callList -> {
-                    List<Call> activeCallList = filter(callList,
-                            call -> call != null && call.getState() != Call.STATE_RINGING);
-                    activeCallList.sort(mCallComparator);
-                    return activeCallList;
-                });
+        mIncomingCallLiveData = new MutableLiveData<>();
+        mOngoingCallListLiveData = new MutableLiveData<>();
+        mPrimaryCallLiveData = new MutableLiveData<>();
+        mSecondaryCallLiveData = new MutableLiveData<>();
 
-        mPrimaryCallLiveData = Transformations.map(mOngoingCallListLiveData,
-                input -> input.isEmpty() ? null : input.get(0));
         mCallDetailLiveData = Transformations.switchMap(mPrimaryCallLiveData,
                 input -> input != null ? new CallDetailLiveData(input) : null);
         mCallStateLiveData = Transformations.switchMap(mPrimaryCallLiveData,
@@ -135,13 +121,10 @@ public class InCallViewModel extends AndroidViewModel implements
         mCallStateAndConnectTimeLiveData =
                 LiveDataFunctions.pair(mCallStateLiveData, mCallConnectTimeLiveData);
 
-        mSecondaryCallLiveData = Transformations.map(mOngoingCallListLiveData,
-                callList -> (callList != null && callList.size() > 1) ? callList.get(1) : null);
-
         mSecondaryCallDetailLiveData = Transformations.switchMap(mSecondaryCallLiveData,
                 input -> input != null ? new CallDetailLiveData(input) : null);
 
-        mAudioRouteLiveData = new AudioRouteLiveData(mContext);
+        mAudioRouteLiveData = new AudioRouteLiveData();
 
         Intent intent = new Intent(mContext, InCallServiceImpl.class);
         intent.setAction(InCallServiceImpl.ACTION_LOCAL_BIND);
@@ -182,7 +165,7 @@ public class InCallViewModel extends AndroidViewModel implements
     /**
      * Returns the live data which monitor the primary call.
      * A primary call in the first call in the ongoing call list,
-     * which is sorted based on {@link CallComparator}.
+     * which is sorted based on {@link CallStateStore#getRank}.
      */
     public LiveData<Call> getPrimaryCall() {
         return mPrimaryCallLiveData;
@@ -191,7 +174,7 @@ public class InCallViewModel extends AndroidViewModel implements
     /**
      * Returns the live data which monitor the secondary call.
      * A secondary call in the second call in the ongoing call list,
-     * which is sorted based on {@link CallComparator}.
+     * which is sorted based on {@link CallStateStore#getRank}.
      * The value will be null if there is no second call in the call list.
      */
     public LiveData<Call> getSecondaryCall() {
@@ -212,89 +195,215 @@ public class InCallViewModel extends AndroidViewModel implements
         return mAudioRouteLiveData;
     }
 
+    /**
+     * Returns the live data which monitors the state of the given call. It is only updated when
+     * the state of that call changes, so it can be observed for each participant of a conference
+     * call.
+     */
+    public LiveData<Integer> getCallState(@NonNull Call call) {
+        return getCallLiveData(call).mState;
+    }
+
+    /** Returns the live data which monitors the details of the given call. */
+    public LiveData<CallDetail> getCallDetail(@NonNull Call call) {
+        return getCallLiveData(call).mDetail;
+    }
+
+    /**
+     * Returns the live data which monitors the participants of the given conference call. The
+     * list is empty if the call is not a conference call.
+     */
+    public LiveData<List<Call>> getConferenceParticipants(@NonNull Call call) {
+        return getCallLiveData(call).mChildren;
+    }
+
     @Override
     public boolean onTelecomCallAdded(Call telecomCall) {
         L.i(TAG, "onTelecomCallAdded %s %s", telecomCall, this);
-        telecomCall.registerCallback(mCallStateChangedCallback);
-        updateCallList();
+        mCallStateStore.setCalls(mInCallService.getCallList());
         return false;
     }
 
     @Override
     public boolean onTelecomCallRemoved(Call telecomCall) {
         L.i(TAG, "onTelecomCallRemoved %s %s", telecomCall, this);
-        telecomCall.unregisterCallback(mCallStateChangedCallback);
-        updateCallList();
+        mCallStateStore.setCalls(mInCallService.getCallList());
+        // Drops the live data of a call which was removed before it got into the store.
+        mCallLiveDataMap.remove(telecomCall);
         return false;
     }
 
-    private void updateCallList() {
-        List<Call> callList = new ArrayList<>();
-        callList.addAll(mInCallService.getCalls());
-        mCallListLiveData.setValue(callList);
+    @Override
+    public void onCallAdded(Call call) {
+        CallLiveData callLiveData = mCallLiveDataMap.get(call);
+        if (callLiveData != null) {
+            // The live data was requested before the call got into the store.
+            loadCallLiveData(call, callLiveData);
+        }
+        if (mCallStateStore.getState(call) == Call.STATE_RINGING) {
+            updateIncomingCall();
+        } else {
+            insertOngoingCall(call);
+        }
+        publishCalls(/* force= */false);
+    }
+
+    @Override
+    public void onCallRemoved(Call call) {
+        mCallLiveDataMap.remove(call);
+        if (call == mIncomingCall) {
+            updateIncomingCall();
+        }
+        mOngoingCalls.remove(call);
+        publishCalls(/* force= */false);
+    }
+
+    @Override
+    public void onCallStateChanged(Call call, int state) {
+        CallLiveData callLiveData = mCallLiveDataMap.get(call);
+        if (callLiveData != null) {
+            callLiveData.mState.setValue(state);
+        }
+
+        boolean wasOngoing = mOngoingCalls.remove(call);
+        if (state != Call.STATE_RINGING) {
+            insertOngoingCall(call);
+        }
+        if (!wasOngoing || state == Call.STATE_RINGING) {
+            updateIncomingCall();
+        }
+        publishCalls(/* force= */false);
+    }
+
+    @Override
+    public void onCallParentChanged(Call call, Call parent) {
+        // Calls in a conference are ranked lower, move the call to its new position.
+        if (mOngoingCalls.remove(call)) {
+            insertOngoingCall(call);
+            publishCalls(/* force= */false);
+        }
+    }
+
+    @Override
+    public void onCallDetailsChanged(Call call, Call.Details details) {
+        // The details don't affect the order of the calls.
+        CallLiveData callLiveData = mCallLiveDataMap.get(call);
+        if (callLiveData != null) {
+            callLiveData.mDetail.setValue(CallEventHub.getCallDetail(call));
+        }
+    }
+
+    @Override
+    public void onCallChildrenChanged(Call call, List<Call> children) {
+        CallLiveData callLiveData = mCallLiveDataMap.get(call);
+        if (callLiveData != null) {
+            callLiveData.mChildren.setValue(children);
+        }
     }
 
     @Override
     protected void onCleared() {
         mContext.unbindService(mInCallServiceConnection);
+        mCallStateStore.tearDown();
+        mCallLiveDataMap.clear();
         if (mInCallService != null) {
-            for (Call call : mInCallService.getCalls()) {
-                call.unregisterCallback(mCallStateChangedCallback);
-            }
             mInCallService.removeActiveCallListChangedCallback(this);
         }
         mInCallService = null;
     }
 
-    private static class CallComparator implements Comparator<Call> {
-        /**
-         * The rank of call state. Used for sorting active calls. Rank is listed from lowest to
-         * highest.
-         */
-        private static final List<Integer> CALL_STATE_RANK = Lists.newArrayList(
-                Call.STATE_RINGING,
-                Call.STATE_DISCONNECTED,
-                Call.STATE_DISCONNECTING,
-                Call.STATE_NEW,
-                Call.STATE_CONNECTING,
-                Call.STATE_SELECT_PHONE_ACCOUNT,
-                Call.STATE_HOLDING,
-                Call.STATE_ACTIVE,
-                Call.STATE_DIALING);
+    /** Sets the incoming call to the first ringing call. */
+    private void updateIncomingCall() {
+        mIncomingCall = null;
+        for (Call call : mCallStateStore.getCalls()) {
+            if (mCallStateStore.getState(call) == Call.STATE_RINGING) {
+                mIncomingCall = call;
+                return;
+            }
+        }
+    }
 
-        @Override
-        public int compare(Call call, Call otherCall) {
-            boolean callHasParent = call.getParent() != null;
-            boolean otherCallHasParent = otherCall.getParent() != null;
-
-            if (callHasParent && !otherCallHasParent) {
-                return 1;
-            } else if (!callHasParent && otherCallHasParent) {
-                return -1;
+    /**
+     * Inserts the call into the sorted ongoing calls. Calls ranked the same keep the order of the
+     * telecom call list, whatever order their changes arrive in.
+     */
+    private void insertOngoingCall(Call call) {
+        int rank = mCallStateStore.getRank(call);
+        long order = mCallStateStore.getOrder(call);
+        int index = 0;
+        while (index < mOngoingCalls.size()) {
+            Call ongoingCall = mOngoingCalls.get(index);
+            int ongoingRank = mCallStateStore.getRank(ongoingCall);
+            if (ongoingRank < rank || (ongoingRank == rank
+                    && mCallStateStore.getOrder(ongoingCall) > order)) {
+                break;
             }
-            int carCallRank = CALL_STATE_RANK.indexOf(call.getState());
-            int otherCarCallRank = CALL_STATE_RANK.indexOf(otherCall.getState());
+            index++;
+        }
+        mOngoingCalls.add(index, call);
+    }
+
+    /**
+     * Publishes the calls to the live data whose value changed, or to all of them if forced.
+     * Nothing is published until the calls are loaded.
+     */
+    private void publishCalls(boolean force) {
+        if (!mIsCallListLoaded) {
+            return;
+        }
+        if (force || !mOngoingCalls.equals(mOngoingCallListLiveData.getValue())) {
+            mOngoingCallListLiveData.setValue(new ArrayList<>(mOngoingCalls));
+        }
+        setValueIfChanged(mIncomingCallLiveData, mIncomingCall, force);
+        setValueIfChanged(mPrimaryCallLiveData,
+                mOngoingCalls.isEmpty() ? null : mOngoingCalls.get(0), force);
+        setValueIfChanged(mSecondaryCallLiveData,
+                mOngoingCalls.size() > 1 ? mOngoingCalls.get(1) : null, force);
+    }
 
-            return otherCarCallRank - carCallRank;
+    /**
+     * Returns the live data of the call. It is kept, and updated, until the call is removed from
+     * the {@link CallStateStore}. A call which has not been added to the store yet is tracked as
+     * soon as it is added. A call which has already been removed only gets its last values.
+     */
+    private CallLiveData getCallLiveData(Call call) {
+        CallLiveData callLiveData = mCallLiveDataMap.get(call);
+        if (callLiveData == null) {
+            callLiveData = new CallLiveData();
+            loadCallLiveData(call, callLiveData);
+            if (mCallStateStore.getState(call) != -1 || isPendingCall(call)) {
+                mCallLiveDataMap.put(call, callLiveData);
+            }
         }
+        return callLiveData;
     }
 
-    private static Call firstMatch(List<Call> callList, Predicate<Call> predicate) {
-        List<Call> filteredResults = filter(callList, predicate);
-        return filteredResults.isEmpty() ? null : filteredResults.get(0);
+    private void loadCallLiveData(Call call, CallLiveData callLiveData) {
+        int state = mCallStateStore.getState(call);
+        callLiveData.mState.setValue(state != -1 ? state : call.getState());
+        callLiveData.mDetail.setValue(CallEventHub.getCallDetail(call));
+        callLiveData.mChildren.setValue(mCallStateStore.getChildren(call));
     }
 
-    private static List<Call> filter(List<Call> callList, Predicate<Call> predicate) {
-        if (callList == null || predicate == null) {
-            return Collections.emptyList();
+    /** Returns whether the call is known to telecom but not loaded into the store yet. */
+    private boolean isPendingCall(Call call) {
+        if (!mIsCallListLoaded) {
+            return true;
         }
+        return mInCallService != null && mInCallService.getCallList().contains(call);
+    }
 
-        List<Call> filteredResults = new ArrayList<>();
-        for (Call call : callList) {
-            if (predicate.apply(call)) {
-                filteredResults.add(call);
-            }
+    private static <T> void setValueIfChanged(MutableLiveData<T> liveData, T value,
+            boolean force) {
+        if (force || liveData.getValue() != value) {
+            liveData.setValue(value);
         }
-        return filteredResults;
+    }
+
+    /** The live data of a single call, updated only by the changes of that call. */
+    private static class CallLiveData {
+        private final MutableLiveData<Integer> mState = new MutableLiveData<>();
+        private final MutableLiveData<CallDetail> mDetail = new MutableLiveData<>();
+        private final MutableLiveData<List<Call>> mChildren = new MutableLiveData<>();
     }
 }
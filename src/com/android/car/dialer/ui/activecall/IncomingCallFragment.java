@@ -27,7 +27,7 @@ import androidx.annotation.Nullable;
 import androidx.lifecycle.ViewModelProviders;
 
 import com.android.car.dialer.R;
-import com.android.car.telephony.common.CallDetail;
+import com.android.car.dialer.telecom.CallEventHub;
 
 /** Fragment that presents the incoming call. */
 public class IncomingCallFragment extends InCallFragment {
@@ -41,7 +41,7 @@ public class IncomingCallFragment extends InCallFragment {
         InCallViewModel inCallViewModel = ViewModelProviders.of(getActivity()).get(
                 InCallViewModel.class);
         inCallViewModel.getIncomingCall().observe(this, call -> bindUserProfileView(
-                call == null ? null : CallDetail.fromTelecomCallDetail(call.getDetails())));
+                call == null ? null : CallEventHub.getCallDetail(call)));
         return fragmentView;
     }
 }
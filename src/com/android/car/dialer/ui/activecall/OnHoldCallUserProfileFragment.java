@@ -32,6 +32,8 @@ import androidx.lifecycle.ViewModelProviders;
 
 import com.android.car.apps.common.LetterTileDrawable;
 import com.android.car.dialer.R;
+import com.android.car.dialer.telecom.PhoneNumberCache;
+import com.android.car.dialer.ui.common.AvatarCache;
 import com.android.car.dialer.ui.view.ContactAvatarOutputlineProvider;
 import com.android.car.telephony.common.CallDetail;
 import com.android.car.telephony.common.TelecomUtils;
@@ -89,13 +91,14 @@ public class OnHoldCallUserProfileFragment extends Fragment {
         }
 
         String number = callDetail.getNumber();
-        mTitle.setText(TelecomUtils.getFormattedNumber(getContext(), number));
+        mTitle.setText(PhoneNumberCache.get(getContext()).getFormattedNumber(number));
         mAvatarView.setImageDrawable(mDefaultAvatar);
         mPhoneNumberInfoFuture = TelecomUtils.getPhoneNumberInfo(getContext(), number)
                 .thenAcceptAsync((info) -> {
                     mTitle.setText(info.getDisplayName());
-                    TelecomUtils.setContactBitmapAsync(getContext(), mAvatarView,
-                            info.getAvatarUri(), info.getDisplayName());
+                    AvatarCache.get(getContext()).bindAvatar(mAvatarView, info.getAvatarUri(),
+                            info.getDisplayName(), getResources().getDimensionPixelSize(
+                                    R.dimen.avatar_icon_size));
                 }, getContext().getMainExecutor());
     }
 
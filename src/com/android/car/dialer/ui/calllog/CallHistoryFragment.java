@@ -22,6 +22,8 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
 import androidx.lifecycle.ViewModelProviders;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
 
 import com.android.car.dialer.ui.common.DialerListBaseFragment;
 import com.android.car.dialer.ui.contact.ContactDetailsFragment;
@@ -31,8 +33,12 @@ import com.android.car.telephony.common.Contact;
 public class CallHistoryFragment extends DialerListBaseFragment implements
         CallLogAdapter.OnShowContactDetailListener {
     private static final String CONTACT_DETAIL_FRAGMENT_TAG = "CONTACT_DETAIL_FRAGMENT_TAG";
+    /** Loads the next page when the last visible item is within this distance of the end. */
+    private static final int LOAD_MORE_THRESHOLD = 10;
 
     private CallLogAdapter mCallLogAdapter;
+    private CallHistoryViewModel mViewModel;
+    private RecyclerView.OnScrollListener mOnScrollListener;
 
     public static CallHistoryFragment newInstance() {
         return new CallHistoryFragment();
@@ -49,10 +55,42 @@ public class CallHistoryFragment extends DialerListBaseFragment implements
         }
         getRecyclerView().setAdapter(mCallLogAdapter);
 
-        CallHistoryViewModel viewModel = ViewModelProviders.of(this).get(
-                CallHistoryViewModel.class);
+        mViewModel = ViewModelProviders.of(this).get(CallHistoryViewModel.class);
 
-        viewModel.getCallHistory().observe(this, mCallLogAdapter::setUiCallLogs);
+        mViewModel.getCallHistory().observe(this, uiCallLogs -> {
+            mCallLogAdapter.setUiCallLogs(uiCallLogs);
+            // Scrolling won't load the next page if the loaded ones don't fill the list.
+            getRecyclerView().post(this::maybeLoadMore);
+        });
+
+        mOnScrollListener = new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                if (dy > 0) {
+                    maybeLoadMore();
+                }
+            }
+        };
+        getRecyclerView().addOnScrollListener(mOnScrollListener);
+    }
+
+    private void maybeLoadMore() {
+        if (getView() == null) {
+            return;
+        }
+        RecyclerView.LayoutManager layoutManager = getRecyclerView().getLayoutManager();
+        if (!getRecyclerView().canScrollVertically(1)
+                || (layoutManager instanceof LinearLayoutManager
+                && ((LinearLayoutManager) layoutManager).findLastVisibleItemPosition()
+                >= mCallLogAdapter.getItemCount() - LOAD_MORE_THRESHOLD)) {
+            mViewModel.loadMore();
+        }
+    }
+
+    @Override
+    public void onDestroyView() {
+        super.onDestroyView();
+        getRecyclerView().removeOnScrollListener(mOnScrollListener);
     }
 
     @Override
@@ -34,13 +34,16 @@ import java.util.List;
  * View model for CallHistoryFragment which provides call history live data.
  */
 public class CallHistoryViewModel extends AndroidViewModel {
+    private final CallHistoryLiveData mCallHistoryLiveData;
     private UiCallLogLiveData mUiCallLogLiveData;
 
     public CallHistoryViewModel(@NonNull Application application) {
         super(application);
+        mCallHistoryLiveData = CallHistoryLiveData.newInstance(
+                application.getApplicationContext());
         mUiCallLogLiveData = new UiCallLogLiveData(application.getApplicationContext(),
                 new HeartBeatLiveData(DateUtils.MINUTE_IN_MILLIS),
-                CallHistoryLiveData.newInstance(application.getApplicationContext()),
+                mCallHistoryLiveData,
                 InMemoryPhoneBook.get().getContactsLiveData());
     }
 
@@ -50,4 +53,11 @@ public class CallHistoryViewModel extends AndroidViewModel {
     public LiveData<List<Object>> getCallHistory() {
         return mUiCallLogLiveData;
     }
+
+    /**
+     * Loads the next page of older call history.
+     */
+    public void loadMore() {
+        mCallHistoryLiveData.loadMore();
+    }
 }
@@ -22,6 +22,8 @@ import android.view.ViewGroup;
 
 import androidx.annotation.IntDef;
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.AsyncListDiffer;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.android.car.dialer.R;
@@ -29,9 +31,10 @@ import com.android.car.dialer.log.L;
 import com.android.car.dialer.ui.common.entity.HeaderViewHolder;
 import com.android.car.dialer.ui.common.entity.UiCallLog;
 import com.android.car.telephony.common.Contact;
+import com.android.car.telephony.common.PhoneCallLog;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 
 /** Adapter for call history list. */
 public class CallLogAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
@@ -55,7 +58,32 @@ public class CallLogAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder
         void onShowContactDetail(Contact contact);
     }
 
-    private List<Object> mUiCallLogs = new ArrayList<>();
+    /**
+     * Compares the headers and call logs so only the rows that have changed get rebound. A call
+     * log group is identified by the provider id of its most recent call, which stays the same
+     * when older calls are merged into the group as more pages are loaded.
+     */
+    private static final DiffUtil.ItemCallback<Object> DIFF_CALLBACK =
+            new DiffUtil.ItemCallback<Object>() {
+                @Override
+                public boolean areItemsTheSame(@NonNull Object oldItem, @NonNull Object newItem) {
+                    if (oldItem instanceof UiCallLog && newItem instanceof UiCallLog) {
+                        return ((UiCallLog) oldItem).getId() == ((UiCallLog) newItem).getId();
+                    }
+                    return oldItem.equals(newItem);
+                }
+
+                @Override
+                public boolean areContentsTheSame(@NonNull Object oldItem,
+                        @NonNull Object newItem) {
+                    if (oldItem instanceof UiCallLog && newItem instanceof UiCallLog) {
+                        return isSameContent((UiCallLog) oldItem, (UiCallLog) newItem);
+                    }
+                    return oldItem.equals(newItem);
+                }
+            };
+
+    private final AsyncListDiffer<Object> mDiffer = new AsyncListDiffer<>(this, DIFF_CALLBACK);
     private Context mContext;
     private CallLogAdapter.OnShowContactDetailListener mOnShowContactDetailListener;
 
@@ -63,16 +91,16 @@ public class CallLogAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder
             CallLogAdapter.OnShowContactDetailListener onShowContactDetailListener) {
         mContext = context;
         mOnShowContactDetailListener = onShowContactDetailListener;
+        setHasStableIds(true);
     }
 
     /**
-     * Sets calllogs.
+     * Sets calllogs. The difference from the current list is computed on a background thread and
+     * only the changed rows are rebound.
      */
     public void setUiCallLogs(@NonNull List<Object> uiCallLogs) {
         L.d(TAG, "setUiCallLogs: %d", uiCallLogs.size());
-        mUiCallLogs.clear();
-        mUiCallLogs.addAll(uiCallLogs);
-        notifyDataSetChanged();
+        mDiffer.submitList(uiCallLogs);
     }
 
     @NonNull
@@ -91,17 +119,18 @@ public class CallLogAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder
 
     @Override
     public void onBindViewHolder(@NonNull RecyclerView.ViewHolder holder, int position) {
+        Object item = mDiffer.getCurrentList().get(position);
         if (holder instanceof  CallLogViewHolder) {
-            ((CallLogViewHolder) holder).onBind((UiCallLog) mUiCallLogs.get(position));
+            ((CallLogViewHolder) holder).onBind((UiCallLog) item);
         } else {
-            ((HeaderViewHolder) holder).setHeaderTitle((String) mUiCallLogs.get(position));
+            ((HeaderViewHolder) holder).setHeaderTitle((String) item);
         }
     }
 
     @Override
     @EntryType
     public int getItemViewType(int position) {
-        if (mUiCallLogs.get(position) instanceof UiCallLog) {
+        if (mDiffer.getCurrentList().get(position) instanceof UiCallLog) {
             return EntryType.TYPE_CALLLOG;
         } else {
             return EntryType.TYPE_HEADER;
@@ -115,8 +144,42 @@ public class CallLogAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder
         }
     }
 
+    @Override
+    public long getItemId(int position) {
+        Object item = mDiffer.getCurrentList().get(position);
+        if (item instanceof UiCallLog) {
+            return ((UiCallLog) item).getId();
+        }
+        // Headers take ids from the bottom of the negative range, which call log ids never reach.
+        return Long.MIN_VALUE + (item.hashCode() & 0xFFFFFFFFL);
+    }
+
     @Override
     public int getItemCount() {
-        return mUiCallLogs.size();
+        return mDiffer.getCurrentList().size();
+    }
+
+    private static boolean isSameContent(UiCallLog oldItem, UiCallLog newItem) {
+        if (!Objects.equals(oldItem.getNumber(), newItem.getNumber())
+                || !Objects.equals(oldItem.getTitle(), newItem.getTitle())
+                || !Objects.equals(oldItem.getLabel(), newItem.getLabel())
+                || oldItem.getRelativeTimeBucket() != newItem.getRelativeTimeBucket()
+                || !Objects.equals(oldItem.getAvatarUri(), newItem.getAvatarUri())) {
+            return false;
+        }
+
+        List<PhoneCallLog.Record> oldRecords = oldItem.getCallRecords();
+        List<PhoneCallLog.Record> newRecords = newItem.getCallRecords();
+        if (oldRecords.size() != newRecords.size()) {
+            return false;
+        }
+        for (int i = 0; i < oldRecords.size(); i++) {
+            if (oldRecords.get(i).getCallEndTimestamp()
+                    != newRecords.get(i).getCallEndTimestamp()
+                    || oldRecords.get(i).getCallType() != newRecords.get(i).getCallType()) {
+                return false;
+            }
+        }
+        return true;
     }
 }
@@ -26,13 +26,13 @@ import androidx.recyclerview.widget.RecyclerView;
 import com.android.car.dialer.R;
 import com.android.car.dialer.livedata.CallHistoryLiveData;
 import com.android.car.dialer.telecom.UiCallManager;
+import com.android.car.dialer.ui.common.AvatarCache;
 import com.android.car.dialer.ui.common.entity.UiCallLog;
 import com.android.car.dialer.ui.view.ContactAvatarOutputlineProvider;
 import com.android.car.dialer.widget.CallTypeIconsView;
 import com.android.car.telephony.common.Contact;
 import com.android.car.telephony.common.InMemoryPhoneBook;
 import com.android.car.telephony.common.PhoneCallLog;
-import com.android.car.telephony.common.TelecomUtils;
 
 /**
  * {@link RecyclerView.ViewHolder} for call history list item, responsible for presenting and
@@ -49,6 +49,7 @@ public class CallLogViewHolder extends RecyclerView.ViewHolder {
     private CallTypeIconsView mCallTypeIconsView;
     private View mActionButton;
     private View mDivider;
+    private final int mAvatarSize;
 
     public CallLogViewHolder(@NonNull View itemView,
             CallLogAdapter.OnShowContactDetailListener onShowContactDetailListener) {
@@ -63,14 +64,15 @@ public class CallLogViewHolder extends RecyclerView.ViewHolder {
         mCallTypeIconsView = itemView.findViewById(R.id.call_type_icons);
         mActionButton = itemView.findViewById(R.id.calllog_action_button);
         mDivider = itemView.findViewById(R.id.divider);
+        mAvatarSize = itemView.getResources().getDimensionPixelSize(R.dimen.avatar_icon_size);
     }
 
     public void onBind(UiCallLog uiCallLog) {
-        TelecomUtils.setContactBitmapAsync(
-                mAvatarView.getContext(),
+        AvatarCache.get(mAvatarView.getContext()).bindAvatar(
                 mAvatarView,
                 uiCallLog.getAvatarUri(),
-                uiCallLog.getTitle());
+                uiCallLog.getTitle(),
+                mAvatarSize);
         mTitleView.setText(uiCallLog.getTitle());
         if (uiCallLog.getMostRecentCallType() == CallHistoryLiveData.CallType.MISSED_TYPE) {
             mTitleView.setTextAppearance(R.style.TextAppearance_CallLogTitleMissedCall);
@@ -78,6 +80,8 @@ public class CallLogViewHolder extends RecyclerView.ViewHolder {
             mTitleView.setTextAppearance(R.style.TextAppearance_CallLogTitleDefault);
         }
 
+        // The same view holder can be rebound without being recycled when only its content changes.
+        mCallTypeIconsView.clear();
         for (PhoneCallLog.Record record : uiCallLog.getCallRecords()) {
             mCallTypeIconsView.add(record.getCallType());
         }
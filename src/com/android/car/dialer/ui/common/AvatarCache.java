@@ -0,0 +1,355 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.dialer.ui.common;
+
+import android.content.Context;
+import android.database.ContentObserver;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.BitmapShader;
+import android.graphics.Canvas;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.graphics.RectF;
+import android.graphics.Shader;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.provider.ContactsContract;
+import android.util.LruCache;
+import android.widget.ImageView;
+
+import androidx.annotation.IntDef;
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import androidx.annotation.WorkerThread;
+
+import com.android.car.dialer.R;
+import com.android.car.dialer.log.L;
+import com.android.car.telephony.common.TelecomUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Avatar bitmaps shared by the list rows, the in call UI and the notifications, keyed by avatar
+ * uri, size and shape. Bitmaps are kept in a memory LRU sized in bytes, and letter tiles in a
+ * smaller one. Concurrent requests for the same avatar share one decode. Contact photos are not
+ * written to disk.
+ *
+ * <p>When the contacts provider changes, cached avatars are kept but marked stale. A stale avatar
+ * is still shown right away and reloaded the next time it is requested. Letter tiles only depend
+ * on the display name and are never invalidated.
+ */
+public class AvatarCache {
+    private static final String TAG = "CD.AvatarCache";
+
+    @Retention(RetentionPolicy.SOURCE)
+    @IntDef({Shape.SQUARE, Shape.ROUNDED})
+    public @interface Shape {
+        /** Center cropped to a square. */
+        int SQUARE = 0;
+        /** Center cropped with the contact avatar corner radius. */
+        int ROUNDED = 1;
+    }
+
+    /** The fraction of the app memory the avatar cache can use. */
+    private static final int MEMORY_CACHE_FRACTION = 16;
+    /** The fraction of the app memory the letter tile cache can use. */
+    private static final int LETTER_TILE_CACHE_FRACTION = 64;
+    /** The maximum byte count of the decode buffers kept for reuse. */
+    private static final int BITMAP_POOL_MAX_BYTES = 4 * 1024 * 1024;
+    private static final int BYTES_PER_PIXEL = 4;
+
+    private static AvatarCache sAvatarCache;
+
+    /** Returns the singleton AvatarCache for the application. */
+    public static synchronized AvatarCache get(Context context) {
+        if (sAvatarCache == null) {
+            sAvatarCache = new AvatarCache(context.getApplicationContext());
+        }
+        return sAvatarCache;
+    }
+
+    /** A cached avatar and the generation of the contacts it was loaded from. */
+    private static final class CachedAvatar {
+        private final Bitmap mBitmap;
+        private final int mGeneration;
+
+        private CachedAvatar(Bitmap bitmap, int generation) {
+            mBitmap = bitmap;
+            mGeneration = generation;
+        }
+    }
+
+    private final Context mContext;
+    private final LruCache<String, CachedAvatar> mMemoryCache;
+    private final LruCache<String, Bitmap> mLetterTileCache;
+    private final BitmapPool mBitmapPool = new BitmapPool(BITMAP_POOL_MAX_BYTES);
+    private final ExecutorService mExecutor = Executors.newSingleThreadExecutor();
+    private final Handler mMainThreadHandler = new Handler(Looper.getMainLooper());
+    /** The pending loads by cache key, so that each avatar is decoded once. */
+    private final Map<String, CompletableFuture<Bitmap>> mPendingLoads = new HashMap<>();
+    /** The avatar each image view is bound to. Only accessed on the main thread. */
+    private final Map<ImageView, String> mBoundKeys = new WeakHashMap<>();
+    private final ContentObserver mContactsObserver;
+    /** Incremented when the contacts change, avatars loaded before are stale. */
+    private volatile int mGeneration;
+
+    private AvatarCache(Context applicationContext) {
+        mContext = applicationContext;
+        mMemoryCache = new LruCache<String, CachedAvatar>(
+                (int) (Runtime.getRuntime().maxMemory() / MEMORY_CACHE_FRACTION)) {
+            @Override
+            protected int sizeOf(String key, CachedAvatar cachedAvatar) {
+                return cachedAvatar.mBitmap.getAllocationByteCount();
+            }
+        };
+        mLetterTileCache = new LruCache<String, Bitmap>(
+                (int) (Runtime.getRuntime().maxMemory() / LETTER_TILE_CACHE_FRACTION)) {
+            @Override
+            protected int sizeOf(String key, Bitmap bitmap) {
+                return bitmap.getAllocationByteCount();
+            }
+        };
+
+        mContactsObserver = new ContentObserver(mMainThreadHandler) {
+            @Override
+            public void onChange(boolean selfChange) {
+                invalidate();
+            }
+        };
+        mContext.getContentResolver().registerContentObserver(
+                ContactsContract.Contacts.CONTENT_URI, true, mContactsObserver);
+    }
+
+    /**
+     * Shows the avatar in the image view, or the letter tile of the display name if there is no
+     * avatar. Cached bitmaps are shown right away, otherwise the letter tile, or the stale avatar,
+     * is shown until the avatar is loaded.
+     */
+    @MainThread
+    public void bindAvatar(@NonNull ImageView imageView, @Nullable Uri avatarUri,
+            @Nullable String displayName, int size) {
+        Bitmap letterTile = getLetterTile(displayName, size, Shape.SQUARE);
+        if (avatarUri == null) {
+            mBoundKeys.remove(imageView);
+            imageView.setImageBitmap(letterTile);
+            return;
+        }
+
+        String key = getKey(avatarUri.toString(), size, Shape.SQUARE);
+        CachedAvatar cachedAvatar = mMemoryCache.get(key);
+        if (cachedAvatar != null && cachedAvatar.mGeneration == mGeneration) {
+            mBoundKeys.remove(imageView);
+            imageView.setImageBitmap(cachedAvatar.mBitmap);
+            return;
+        }
+
+        // A stale avatar is shown until it is reloaded.
+        mBoundKeys.put(imageView, key);
+        imageView.setImageBitmap(cachedAvatar != null ? cachedAvatar.mBitmap : letterTile);
+        loadAvatarAsync(avatarUri, size, Shape.SQUARE).thenAcceptAsync(bitmap -> {
+            if (key.equals(mBoundKeys.get(imageView))) {
+                imageView.setImageBitmap(bitmap != null ? bitmap : letterTile);
+                mBoundKeys.remove(imageView);
+            }
+        }, mContext.getMainExecutor());
+    }
+
+    /** Loads the avatar in the background, completing with {@code null} if there is none. */
+    public CompletableFuture<Bitmap> loadAvatarAsync(@Nullable Uri avatarUri, int size,
+            @Shape int shape) {
+        return CompletableFuture.supplyAsync(() -> getAvatar(avatarUri, size, shape), mExecutor);
+    }
+
+    /**
+     * Returns the avatar from the memory cache or decoded from the contacts provider, or
+     * {@code null} if there is none. A stale cached avatar is decoded again.
+     */
+    @WorkerThread
+    @Nullable
+    public Bitmap getAvatar(@Nullable Uri avatarUri, int size, @Shape int shape) {
+        if (avatarUri == null) {
+            return null;
+        }
+
+        String key = getKey(avatarUri.toString(), size, shape);
+        int generation = mGeneration;
+        CachedAvatar cachedAvatar = mMemoryCache.get(key);
+        if (cachedAvatar != null && cachedAvatar.mGeneration == generation) {
+            return cachedAvatar.mBitmap;
+        }
+
+        CompletableFuture<Bitmap> pendingLoad;
+        boolean isOwner = false;
+        synchronized (mPendingLoads) {
+            pendingLoad = mPendingLoads.get(key);
+            if (pendingLoad == null) {
+                pendingLoad = new CompletableFuture<>();
+                mPendingLoads.put(key, pendingLoad);
+                isOwner = true;
+            }
+        }
+        if (!isOwner) {
+            return pendingLoad.join();
+        }
+
+        Bitmap bitmap = null;
+        try {
+            Bitmap decoded = decodeAvatar(avatarUri, size);
+            if (decoded != null) {
+                bitmap = applyShape(decoded, size, shape);
+                if (bitmap != decoded) {
+                    mBitmapPool.put(decoded);
+                }
+                mMemoryCache.put(key, new CachedAvatar(bitmap, generation));
+            } else {
+                mMemoryCache.remove(key);
+            }
+        } finally {
+            synchronized (mPendingLoads) {
+                mPendingLoads.remove(key);
+            }
+            pendingLoad.complete(bitmap);
+        }
+        return bitmap;
+    }
+
+    /** Returns the letter tile of the display name. */
+    @NonNull
+    public Bitmap getLetterTile(@Nullable String displayName, int size, @Shape int shape) {
+        String key = getKey(String.valueOf(displayName), size, shape);
+        Bitmap bitmap = mLetterTileCache.get(key);
+        if (bitmap == null) {
+            bitmap = applyShape(
+                    TelecomUtils.createLetterTile(mContext, displayName).toBitmap(size), size,
+                    shape);
+            mLetterTileCache.put(key, bitmap);
+        }
+        return bitmap;
+    }
+
+    /** Marks the cached avatars as stale, so they are reloaded when requested again. */
+    @MainThread
+    public void invalidate() {
+        L.d(TAG, "invalidate");
+        mGeneration++;
+    }
+
+    /** Tears down the singleton AvatarCache for the application. */
+    @VisibleForTesting
+    public static synchronized void tearDown() {
+        if (sAvatarCache != null) {
+            sAvatarCache.mContext.getContentResolver().unregisterContentObserver(
+                    sAvatarCache.mContactsObserver);
+            sAvatarCache.mExecutor.shutdown();
+            sAvatarCache = null;
+        }
+    }
+
+    /**
+     * Decodes the avatar subsampled to the smallest power of two scale that is still at least the
+     * given size, into a pooled bitmap when one is large enough. Contact photos are often much
+     * larger than the avatars, so the full resolution photo is never allocated.
+     */
+    @Nullable
+    private Bitmap decodeAvatar(Uri avatarUri, int size) {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        decodeStream(avatarUri, options);
+        if (options.outWidth <= 0 || options.outHeight <= 0) {
+            return null;
+        }
+
+        options.inSampleSize = getSampleSize(options.outWidth, options.outHeight, size);
+        options.inJustDecodeBounds = false;
+        options.inMutable = true;
+        int width = (options.outWidth + options.inSampleSize - 1) / options.inSampleSize;
+        int height = (options.outHeight + options.inSampleSize - 1) / options.inSampleSize;
+        options.inBitmap = mBitmapPool.get(width * height * BYTES_PER_PIXEL);
+        try {
+            return decodeStream(avatarUri, options);
+        } catch (IllegalArgumentException e) {
+            // The pooled bitmap can't be reused for this image.
+            options.inBitmap = null;
+            return decodeStream(avatarUri, options);
+        }
+    }
+
+    @Nullable
+    private Bitmap decodeStream(Uri avatarUri, BitmapFactory.Options options) {
+        try (InputStream input = mContext.getContentResolver().openInputStream(avatarUri)) {
+            return input == null ? null : BitmapFactory.decodeStream(input, null, options);
+        } catch (IOException e) {
+            L.w(TAG, "Failed to decode avatar %s", avatarUri);
+            return null;
+        }
+    }
+
+    /** Returns the largest power of two sample size keeping both dimensions at least the size. */
+    @VisibleForTesting
+    static int getSampleSize(int width, int height, int size) {
+        int sampleSize = 1;
+        while (width / (sampleSize * 2) >= size && height / (sampleSize * 2) >= size) {
+            sampleSize *= 2;
+        }
+        return sampleSize;
+    }
+
+    /** Center crops the bitmap to a square of the size, with rounded corners if needed. */
+    private Bitmap applyShape(Bitmap source, int size, @Shape int shape) {
+        if (shape == Shape.SQUARE && source.getWidth() == size && source.getHeight() == size) {
+            return source;
+        }
+
+        float scale = Math.max((float) size / source.getWidth(),
+                (float) size / source.getHeight());
+        Matrix matrix = new Matrix();
+        matrix.setScale(scale, scale);
+        matrix.postTranslate((size - source.getWidth() * scale) / 2f,
+                (size - source.getHeight() * scale) / 2f);
+
+        BitmapShader shader = new BitmapShader(source, Shader.TileMode.CLAMP,
+                Shader.TileMode.CLAMP);
+        shader.setLocalMatrix(matrix);
+        Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG | Paint.FILTER_BITMAP_FLAG);
+        paint.setShader(shader);
+
+        float radius = shape == Shape.ROUNDED
+                ? size * mContext.getResources().getFloat(
+                        R.dimen.contact_avatar_corner_radius_percent)
+                : 0;
+        Bitmap result = Bitmap.createBitmap(size, size, Bitmap.Config.ARGB_8888);
+        new Canvas(result).drawRoundRect(new RectF(0, 0, size, size), radius, radius, paint);
+        return result;
+    }
+
+    private static String getKey(String source, int size, @Shape int shape) {
+        return source + "|" + size + "|" + shape;
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.dialer.ui.common;
+
+import android.graphics.Bitmap;
+
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A bounded pool of mutable bitmaps to decode into with {@link
+ * android.graphics.BitmapFactory.Options#inBitmap}, so that transient decode buffers are reused
+ * instead of allocated for every decode. It is thread safe.
+ */
+final class BitmapPool {
+    private final int mMaxBytes;
+    private final List<Bitmap> mBitmaps = new ArrayList<>();
+    private int mBytes;
+
+    /** @param maxBytes The maximum byte count of the pooled bitmaps. */
+    BitmapPool(int maxBytes) {
+        mMaxBytes = maxBytes;
+    }
+
+    /**
+     * Removes and returns the smallest pooled bitmap that can hold the given byte count, or
+     * {@code null} if there is none.
+     */
+    @Nullable
+    synchronized Bitmap get(int byteCount) {
+        Bitmap best = null;
+        for (Bitmap bitmap : mBitmaps) {
+            int allocation = bitmap.getAllocationByteCount();
+            if (allocation >= byteCount
+                    && (best == null || allocation < best.getAllocationByteCount())) {
+                best = bitmap;
+            }
+        }
+        if (best != null) {
+            mBitmaps.remove(best);
+            mBytes -= best.getAllocationByteCount();
+        }
+        return best;
+    }
+
+    /** Returns the bitmap to the pool, dropping it if it doesn't fit. */
+    synchronized void put(Bitmap bitmap) {
+        int allocation = bitmap.getAllocationByteCount();
+        if (!bitmap.isMutable() || bitmap.isRecycled() || allocation > mMaxBytes
+                || mBitmaps.contains(bitmap)) {
+            return;
+        }
+        while (mBytes + allocation > mMaxBytes && !mBitmaps.isEmpty()) {
+            mBytes -= mBitmaps.remove(0).getAllocationByteCount();
+        }
+        mBitmaps.add(bitmap);
+        mBytes += allocation;
+    }
+
+    /** Drops all pooled bitmaps. */
+    synchronized void clear() {
+        mBitmaps.clear();
+        mBytes = 0;
+    }
+}
@@ -28,37 +28,43 @@ import com.android.car.dialer.R;
 import com.android.car.dialer.livedata.CallHistoryLiveData;
 import com.android.car.dialer.livedata.HeartBeatLiveData;
 import com.android.car.dialer.log.L;
+import com.android.car.dialer.telecom.PhoneNumberCache;
 import com.android.car.dialer.ui.common.entity.UiCallLog;
+import com.android.car.dialer.widget.WorkerExecutor;
 import com.android.car.telephony.common.Contact;
 import com.android.car.telephony.common.InMemoryPhoneBook;
 import com.android.car.telephony.common.PhoneCallLog;
 import com.android.car.telephony.common.PhoneNumber;
 import com.android.car.telephony.common.TelecomUtils;
 
-import com.google.common.base.Joiner;
-import com.google.common.base.Splitter;
-
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Future;
 
 /**
  * Represents a list of {@link UiCallLog}s and label {@link String}s for UI representation.
  * This live data gets data source from both call log and contact list. It also refresh
  * itself on the relative time in the body text.
+ *
+ * <p>The conversion runs on a worker thread. A conversion in flight is cancelled when the call
+ * history or the contact list changes again, so only the latest result is posted.
  */
 public class UiCallLogLiveData extends MediatorLiveData<List<Object>> {
     private static final String TAG = "CD.UiCallLogLiveData";
-
-    private static final String TYPE_AND_RELATIVE_TIME_JOINER = ", ";
     private Context mContext;
+    private final CallHistoryLiveData mCallHistoryLiveData;
+
+    private Future<?> mRunnableFuture;
+    private boolean mConversionCancelled;
 
     public UiCallLogLiveData(Context context,
             HeartBeatLiveData heartBeatLiveData,
             CallHistoryLiveData callHistoryLiveData,
             LiveData<List<Contact>> contactListLiveData) {
         mContext = context;
+        mCallHistoryLiveData = callHistoryLiveData;
         addSource(callHistoryLiveData, this::onCallHistoryChanged);
         addSource(contactListLiveData, (contacts) -> {
             // Don't call onCallHistoryChanged() before the call history is loaded.
@@ -72,8 +78,41 @@ public class UiCallLogLiveData extends MediatorLiveData<List<Object>> {
         addSource(heartBeatLiveData, (trigger) -> updateRelativeTime());
     }
 
+    @Override
+    protected void onActive() {
+        super.onActive();
+        // Sources don't emit again for values already dispatched, resume the cancelled conversion.
+        if (mConversionCancelled) {
+            mConversionCancelled = false;
+            onCallHistoryChanged(mCallHistoryLiveData.getValue());
+        }
+    }
+
+    @Override
+    protected void onInactive() {
+        super.onInactive();
+        if (mRunnableFuture != null && !mRunnableFuture.isDone()) {
+            mRunnableFuture.cancel(true);
+            mConversionCancelled = true;
+        }
+    }
+
     private void onCallHistoryChanged(List<PhoneCallLog> callLogs) {
-        setValue(convert(callLogs));
+        // SingleThreadPoolExecutor is used here so a cancelled conversion never runs in parallel
+        // with the latest one and results are posted in submission order.
+        if (mRunnableFuture != null) {
+            mRunnableFuture.cancel(true);
+        }
+        mConversionCancelled = false;
+
+        Runnable runnable = () -> {
+            List<Object> uiCallLogs = convert(callLogs);
+            if (uiCallLogs != null) {
+                postValue(uiCallLogs);
+            }
+        };
+        mRunnableFuture = WorkerExecutor.getInstance().getSingleThreadExecutor().submit(
+                runnable);
     }
 
     private void updateRelativeTime() {
@@ -82,39 +121,31 @@ public class UiCallLogLiveData extends MediatorLiveData<List<Object>> {
         if (uiCallLogs == null) {
             return;
         }
+        long now = System.currentTimeMillis();
+        // Observers diff the emitted lists, so only the call logs whose displayed relative time
+        // has changed are replaced.
+        List<Object> updatedUiCallLogs = new ArrayList<>(uiCallLogs.size());
         for (Object object : uiCallLogs) {
             if (object instanceof UiCallLog) {
                 UiCallLog uiCallLog = (UiCallLog) object;
-                String secondaryText = uiCallLog.getText();
-                List<String> splittedSecondaryText = Splitter.on(
-                        TYPE_AND_RELATIVE_TIME_JOINER).splitToList(secondaryText);
-
-                String oldRelativeTime;
-                String type = "";
-                if (splittedSecondaryText.size() == 1) {
-                    oldRelativeTime = splittedSecondaryText.get(0);
-                } else if (splittedSecondaryText.size() == 2) {
-                    type = splittedSecondaryText.get(0);
-                    oldRelativeTime = splittedSecondaryText.get(1);
-                } else {
-                    L.w(TAG, "secondary text format is incorrect: %s", secondaryText);
-                    return;
-                }
-
-                String newRelativeTime = getRelativeTime(uiCallLog.getMostRecentCallEndTimestamp());
-                if (!oldRelativeTime.equals(newRelativeTime)) {
-                    String newSecondaryText = getSecondaryText(type, newRelativeTime);
-                    uiCallLog.setText(newSecondaryText);
-                    hasChanged = true;
-                }
+                UiCallLog updatedUiCallLog = uiCallLog.refreshRelativeTime(now);
+                hasChanged |= updatedUiCallLog != uiCallLog;
+                updatedUiCallLogs.add(updatedUiCallLog);
+            } else {
+                updatedUiCallLogs.add(object);
             }
         }
 
         if (hasChanged) {
-            setValue(getValue());
+            setValue(updatedUiCallLogs);
         }
     }
 
+    /**
+     * Converts the call logs on the worker thread. Returns {@code null} if the conversion is
+     * cancelled.
+     */
+    @Nullable
     private List<Object> convert(List<PhoneCallLog> phoneCallLogs) {
         if (phoneCallLogs == null) {
             return Collections.emptyList();
@@ -124,6 +155,11 @@ public class UiCallLogLiveData extends MediatorLiveData<List<Object>> {
 
         InMemoryPhoneBook inMemoryPhoneBook = InMemoryPhoneBook.get();
         for (PhoneCallLog phoneCallLog : phoneCallLogs) {
+            if (Thread.currentThread().isInterrupted()) {
+                L.d(TAG, "conversion cancelled");
+                return null;
+            }
+
             String header = getHeader(phoneCallLog.getLastCallEndTimestamp());
             if (preHeader == null || (!header.equals(preHeader))) {
                 uiCallLogs.add(header);
@@ -131,11 +167,10 @@ public class UiCallLogLiveData extends MediatorLiveData<List<Object>> {
             preHeader = header;
 
             String number = phoneCallLog.getPhoneNumberString();
-            String relativeTime = getRelativeTime(phoneCallLog.getLastCallEndTimestamp());
             if (TelecomUtils.isVoicemailNumber(mContext, number)) {
                 String title = mContext.getString(R.string.voicemail);
-                UiCallLog uiCallLog = new UiCallLog(title,
-                        relativeTime, number, null, phoneCallLog.getAllCallRecords());
+                UiCallLog uiCallLog = new UiCallLog(phoneCallLog.getPhoneLogId(), title,
+                        /* label= */"", number, null, phoneCallLog.getAllCallRecords());
                 uiCallLogs.add(uiCallLog);
                 continue;
             }
@@ -145,15 +180,16 @@ public class UiCallLogLiveData extends MediatorLiveData<List<Object>> {
             if (contact != null && contact.getDisplayName() != null) {
                 title = contact.getDisplayName();
             } else if (!TextUtils.isEmpty(number)) {
-                title = TelecomUtils.getFormattedNumber(mContext, number);
+                title = PhoneNumberCache.get(mContext).getFormattedNumber(number);
             } else {
                 title = mContext.getString(R.string.unknown);
             }
             PhoneNumber phoneNumber = contact != null ? contact.getPhoneNumber(number) : null;
 
             UiCallLog uiCallLog = new UiCallLog(
+                    phoneCallLog.getPhoneLogId(),
                     title,
-                    getSecondaryText(getType(phoneNumber), relativeTime),
+                    getType(phoneNumber),
                     number,
                     contact != null ? contact.getAvatarUri() : null,
                     phoneCallLog.getAllCallRecords());
@@ -166,24 +202,10 @@ public class UiCallLogLiveData extends MediatorLiveData<List<Object>> {
         return uiCallLogs;
     }
 
-    private String getRelativeTime(long millis) {
-        boolean validTimestamp = millis > 0;
-
-        return validTimestamp ? DateUtils.getRelativeTimeSpanString(
-                millis, System.currentTimeMillis(), DateUtils.MINUTE_IN_MILLIS,
-                DateUtils.FORMAT_ABBREV_RELATIVE).toString() : "";
-    }
-
-    private String getSecondaryText(@Nullable CharSequence type, String relativeTime) {
-        if (!TextUtils.isEmpty(type)) {
-            return Joiner.on(TYPE_AND_RELATIVE_TIME_JOINER).join(type, relativeTime);
-        } else {
-            return relativeTime;
-        }
-    }
-
-    private CharSequence getType(@Nullable PhoneNumber phoneNumber) {
-        return phoneNumber != null ? phoneNumber.getReadableLabel(mContext.getResources()) : "";
+    private String getType(@Nullable PhoneNumber phoneNumber) {
+        CharSequence type = phoneNumber != null
+                ? phoneNumber.getReadableLabel(mContext.getResources()) : null;
+        return type != null ? type.toString() : "";
     }
 
     private String getHeader(long calllogTime) {
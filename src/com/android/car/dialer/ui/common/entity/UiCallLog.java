@@ -17,6 +17,8 @@
 package com.android.car.dialer.ui.common.entity;
 
 import android.net.Uri;
+import android.text.TextUtils;
+import android.text.format.DateUtils;
 
 import com.android.car.dialer.livedata.CallHistoryLiveData;
 import com.android.car.telephony.common.PhoneCallLog;
@@ -24,24 +26,60 @@ import com.android.car.telephony.common.PhoneCallLog;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.TimeZone;
 
 /**
- * Ui representation of a call log.
+ * Ui representation of a call log. The body text is made of a label, e.g. the phone number type,
+ * and the relative time of the most recent call which is rendered when {@link #getText()} is
+ * called.
  */
 public class UiCallLog {
+    private static final String LABEL_AND_RELATIVE_TIME_JOINER = ", ";
+    private static final long INVALID_RELATIVE_TIME_BUCKET = Long.MIN_VALUE;
+    private static final long INVALID_ID = -1;
+
+    private final long mId;
     private final String mTitle;
+    private final String mLabel;
     private final String mNumber;
     private final Uri mAvatarUri;
     private final List<PhoneCallLog.Record> mCallRecords;
-    private String mText;
+    private final long mRelativeTimeBucket;
+
+    public UiCallLog(String title, String label, String number, Uri avatarUri,
+            List<PhoneCallLog.Record> callRecords) {
+        this(INVALID_ID, title, label, number, avatarUri, callRecords);
+    }
 
-    public UiCallLog(String title, String text, String number, Uri avatarUri,
+    public UiCallLog(long id, String title, String label, String number, Uri avatarUri,
             List<PhoneCallLog.Record> callRecords) {
+        mId = id;
         mTitle = title;
-        mText = text;
+        mLabel = label;
         mNumber = number;
         mAvatarUri = avatarUri;
         mCallRecords = new ArrayList<>(callRecords);
+        mRelativeTimeBucket = getRelativeTimeBucket(getMostRecentCallEndTimestamp(),
+                System.currentTimeMillis());
+    }
+
+    private UiCallLog(UiCallLog uiCallLog, long relativeTimeBucket) {
+        mId = uiCallLog.mId;
+        mTitle = uiCallLog.mTitle;
+        mLabel = uiCallLog.mLabel;
+        mNumber = uiCallLog.mNumber;
+        mAvatarUri = uiCallLog.mAvatarUri;
+        mCallRecords = uiCallLog.mCallRecords;
+        mRelativeTimeBucket = relativeTimeBucket;
+    }
+
+    /**
+     * Returns the call log provider id of the most recent call, or a negative value if it is not
+     * backed by the call log provider. It does not change when older calls are merged into this
+     * log.
+     */
+    public long getId() {
+        return mId;
     }
 
     /**
@@ -52,17 +90,46 @@ public class UiCallLog {
     }
 
     /**
-     * Returns the body text of a call log item.
+     * Returns the label of a call log item, e.g. the readable type of the phone number. It can be
+     * empty.
+     */
+    public String getLabel() {
+        return mLabel;
+    }
+
+    /**
+     * Returns the body text of a call log item, which joins the label and the relative time of
+     * the most recent call rendered against the current time.
      */
     public String getText() {
-        return mText;
+        long timestamp = getMostRecentCallEndTimestamp();
+        String relativeTime = timestamp > 0 ? DateUtils.getRelativeTimeSpanString(
+                timestamp, System.currentTimeMillis(), DateUtils.MINUTE_IN_MILLIS,
+                DateUtils.FORMAT_ABBREV_RELATIVE).toString() : "";
+        if (TextUtils.isEmpty(mLabel)) {
+            return relativeTime;
+        }
+        return mLabel + LABEL_AND_RELATIVE_TIME_JOINER + relativeTime;
     }
 
     /**
-     * Updates the body text.
+     * Returns the bucket of the displayed relative time, e.g. "2 min ago". Two call logs in the
+     * same bucket display the same relative time.
      */
-    public void setText(String text) {
-        mText = text;
+    public long getRelativeTimeBucket() {
+        return mRelativeTimeBucket;
+    }
+
+    /**
+     * Returns a call log whose relative time bucket is evaluated at {@code now}. Returns this
+     * instance if the displayed relative time has not changed.
+     */
+    public UiCallLog refreshRelativeTime(long now) {
+        long relativeTimeBucket = getRelativeTimeBucket(getMostRecentCallEndTimestamp(), now);
+        if (relativeTimeBucket == mRelativeTimeBucket) {
+            return this;
+        }
+        return new UiCallLog(this, relativeTimeBucket);
     }
 
     /**
@@ -117,4 +184,34 @@ public class UiCallLog {
         return mCallRecords.isEmpty() ? CallHistoryLiveData.CallType.CALL_TYPE_ALL
                 : mCallRecords.get(0).getCallType();
     }
+
+    /**
+     * Maps a timestamp to the unit and count displayed by
+     * {@link DateUtils#getRelativeTimeSpanString} with minute resolution, without formatting the
+     * string.
+     */
+    private static long getRelativeTimeBucket(long timestamp, long now) {
+        if (timestamp <= 0) {
+            return INVALID_RELATIVE_TIME_BUCKET;
+        }
+
+        boolean past = now >= timestamp;
+        long duration = Math.abs(now - timestamp);
+        long bucket;
+        if (duration < DateUtils.HOUR_IN_MILLIS) {
+            bucket = duration / DateUtils.MINUTE_IN_MILLIS;
+        } else if (duration < DateUtils.DAY_IN_MILLIS) {
+            bucket = DateUtils.DAY_IN_MILLIS + duration / DateUtils.HOUR_IN_MILLIS;
+        } else if (duration < DateUtils.WEEK_IN_MILLIS) {
+            bucket = DateUtils.WEEK_IN_MILLIS + Math.abs(getDay(now) - getDay(timestamp));
+        } else {
+            // An absolute date is displayed which does not change over time.
+            bucket = DateUtils.YEAR_IN_MILLIS;
+        }
+        return past ? bucket : -bucket;
+    }
+
+    private static long getDay(long millis) {
+        return (millis + TimeZone.getDefault().getOffset(millis)) / DateUtils.DAY_IN_MILLIS;
+    }
 }
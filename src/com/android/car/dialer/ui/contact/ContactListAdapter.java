@@ -16,22 +16,23 @@
 package com.android.car.dialer.ui.contact;
 
 import android.content.Context;
-import android.text.TextUtils;
-import android.util.Pair;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.android.car.dialer.R;
 import com.android.car.telephony.common.Contact;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Collections;
 
-/** Adapter for contact list. */
+/**
+ * Adapter for contact list. Headers are served by the section index of the
+ * {@link SortedContactList}.
+ */
 public class ContactListAdapter extends RecyclerView.Adapter<ContactListViewHolder> {
     private static final String TAG = "CD.ContactListAdapter";
 
@@ -39,11 +40,13 @@ public class ContactListAdapter extends RecyclerView.Adapter<ContactListViewHold
         void onShowContactDetail(Contact contact);
     }
 
+    private static final SortedContactList EMPTY_CONTACT_LIST = new SortedContactList(
+            ContactListViewModel.SORT_BY_FIRST_NAME, Collections.emptyList(), "");
+
     private final Context mContext;
-    private final List<Contact> mContactList = new ArrayList<>();
     private final OnShowContactDetailListener mOnShowContactDetailListener;
 
-    private Integer mSortMethod;
+    private SortedContactList mContactList = EMPTY_CONTACT_LIST;
 
     public ContactListAdapter(Context context,
             OnShowContactDetailListener onShowContactDetailListener) {
@@ -54,12 +57,8 @@ public class ContactListAdapter extends RecyclerView.Adapter<ContactListViewHold
     /**
      * Sets {@link #mContactList} based on live data.
      */
-    public void setContactList(Pair<Integer, List<Contact>> contactListPair) {
-        mContactList.clear();
-        if (contactListPair != null) {
-            mContactList.addAll(contactListPair.second);
-            mSortMethod = contactListPair.first;
-        }
+    public void setContactList(@Nullable SortedContactList contactList) {
+        mContactList = contactList != null ? contactList : EMPTY_CONTACT_LIST;
         notifyDataSetChanged();
     }
 
@@ -73,28 +72,13 @@ public class ContactListAdapter extends RecyclerView.Adapter<ContactListViewHold
 
     @Override
     public void onBindViewHolder(@NonNull ContactListViewHolder holder, int position) {
-        Contact contact = mContactList.get(position);
-        String header = getHeader(contact);
-
-        boolean showHeader = position == 0
-                || (!header.equals(getHeader(mContactList.get(position - 1))));
-        holder.onBind(contact, showHeader, header);
+        Contact contact = mContactList.getContacts().get(position);
+        holder.onBind(contact, mContactList.isSectionStart(position),
+                mContactList.getSectionLabel(position));
     }
 
     @Override
     public int getItemCount() {
-        return  mContactList.size();
-    }
-
-    private String getHeader(Contact contact) {
-        String label;
-        if (mSortMethod.equals(ContactListViewModel.SORT_BY_LAST_NAME)) {
-            label = contact.getPhonebookLabelAlt();
-        } else {
-            label = contact.getPhonebookLabel();
-        }
-
-        return !TextUtils.isEmpty(label) ? label
-                : mContext.getString(R.string.header_for_type_other);
+        return mContactList.getContacts().size();
     }
 }
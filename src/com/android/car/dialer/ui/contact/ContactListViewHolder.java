@@ -26,11 +26,11 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import com.android.car.dialer.R;
 import com.android.car.dialer.telecom.UiCallManager;
+import com.android.car.dialer.ui.common.AvatarCache;
 import com.android.car.dialer.ui.common.DialerUtils;
 import com.android.car.dialer.ui.view.ContactAvatarOutputlineProvider;
 import com.android.car.telephony.common.Contact;
 import com.android.car.telephony.common.PhoneNumber;
-import com.android.car.telephony.common.TelecomUtils;
 
 import java.util.List;
 
@@ -46,6 +46,7 @@ public class ContactListViewHolder extends RecyclerView.ViewHolder {
     private final TextView mTextView;
     private final View mShowContactDetailView;
     private final View mCallActionView;
+    private final int mAvatarSize;
 
     public ContactListViewHolder(@NonNull View itemView,
             ContactListAdapter.OnShowContactDetailListener onShowContactDetailListener) {
@@ -58,13 +59,15 @@ public class ContactListViewHolder extends RecyclerView.ViewHolder {
         mTextView = itemView.findViewById(R.id.text);
         mShowContactDetailView = itemView.findViewById(R.id.show_contact_detail_id);
         mCallActionView = itemView.findViewById(R.id.call_action_id);
+        mAvatarSize = itemView.getResources().getDimensionPixelSize(R.dimen.avatar_icon_size);
     }
 
     /**
      * Binds the view holder with relevant data.
      */
     public void onBind(Contact contact, boolean showHeader, String header) {
-        TelecomUtils.setContactBitmapAsync(mAvatarView.getContext(), mAvatarView, contact, null);
+        AvatarCache.get(mAvatarView.getContext()).bindAvatar(mAvatarView,
+                contact.getAvatarUri(), contact.getDisplayName(), mAvatarSize);
         if (showHeader) {
             mHeaderView.setVisibility(View.VISIBLE);
             mHeaderView.setText(header);
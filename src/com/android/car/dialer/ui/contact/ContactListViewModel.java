@@ -18,9 +18,13 @@ package com.android.car.dialer.ui.contact;
 
 import android.app.Application;
 import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
 import android.util.Pair;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
 import androidx.lifecycle.AndroidViewModel;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MediatorLiveData;
@@ -31,9 +35,13 @@ import com.android.car.dialer.widget.WorkerExecutor;
 import com.android.car.telephony.common.Contact;
 import com.android.car.telephony.common.InMemoryPhoneBook;
 
+import java.text.Collator;
+import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.concurrent.Future;
 
 /**
@@ -45,7 +53,7 @@ public class ContactListViewModel extends AndroidViewModel {
     public static final int SORT_BY_LAST_NAME = 2;
 
     private final Context mContext;
-    private final LiveData<Pair<Integer, List<Contact>>> mSortedContactListLiveData;
+    private final LiveData<SortedContactList> mSortedContactListLiveData;
 
     public ContactListViewModel(@NonNull Application application) {
         super(application);
@@ -59,41 +67,33 @@ public class ContactListViewModel extends AndroidViewModel {
     }
 
     /**
-     * Returns a live data which represents a list of all contacts.
+     * Returns a live data which represents a list of all contacts with its section index.
      */
-    public LiveData<Pair<Integer, List<Contact>>> getAllContacts() {
+    public LiveData<SortedContactList> getAllContacts() {
         return mSortedContactListLiveData;
     }
 
-    private static class SortedContactListLiveData
-            extends MediatorLiveData<Pair<Integer, List<Contact>>> {
+    /**
+     * Keeps the contact list sorted by both first name and last name so switching the sort order
+     * is instant. Both orders are sorted on the worker thread with precomputed
+     * {@link ContactSortKey}s, which are cached by lookup key until the contact changes. The
+     * shared {@link InMemoryPhoneBook} list is never modified.
+     */
+    private static class SortedContactListLiveData extends MediatorLiveData<SortedContactList> {
 
         private final LiveData<List<Contact>> mContactListLiveData;
         private final SharedPreferencesLiveData mPreferencesLiveData;
         private final Context mContext;
+        private final Handler mMainThreadHandler = new Handler(Looper.getMainLooper());
 
-        private Future<?> mRunnableFuture;
-
-        /**
-         * Sort by the default display order of a name. For western names it will be "Given Family".
-         * For unstructured names like east asian this will be the only order.
-         * Phone Dialer uses the same method for sorting given names.
-         *
-         * @see android.provider.ContactsContract.Contacts#DISPLAY_NAME_PRIMARY
-         */
-        private final Comparator<Contact> mFirstNameComparator =
-                (o1, o2) -> o1.compareByDisplayName(o2);
+        /** Only accessed on the worker thread. */
+        private final Map<String, ContactSortKey> mSortKeyCache = new HashMap<>();
+        private Locale mSortKeyLocale;
 
-        /**
-         * Sort by the alternative display order of a name. For western names it will be "Family,
-         * Given". For unstructured names like east asian this order will be ignored and treated as
-         * primary.
-         * Phone Dialer uses the same method for sorting family names.
-         *
-         * @see android.provider.ContactsContract.Contacts#DISPLAY_NAME_ALTERNATIVE
-         */
-        private final Comparator<Contact> mLastNameComparator =
-                (o1, o2) -> o1.compareByAltDisplayName(o2);
+        private Future<?> mRunnableFuture;
+        private List<Contact> mSortedContactSource;
+        private SortedContactList mSortedByFirstName;
+        private SortedContactList mSortedByLastName;
 
         private SortedContactListLiveData(Context context,
                 @NonNull LiveData<List<Contact>> contactListLiveData,
@@ -102,32 +102,31 @@ public class ContactListViewModel extends AndroidViewModel {
             mContactListLiveData = contactListLiveData;
             mPreferencesLiveData = sharedPreferencesLiveData;
 
-            addSource(mPreferencesLiveData, (trigger) -> updateSortedContactList());
-            addSource(mContactListLiveData, (trigger) -> updateSortedContactList());
+            addSource(mPreferencesLiveData, (trigger) -> updateSortMethod());
+            addSource(mContactListLiveData, this::onContactListChanged);
+        }
+
+        @Override
+        protected void onActive() {
+            super.onActive();
+            // Resume the sort cancelled when becoming inactive.
+            List<Contact> contactList = mContactListLiveData.getValue();
+            if (mRunnableFuture != null && mRunnableFuture.isCancelled()
+                    && contactList != mSortedContactSource) {
+                onContactListChanged(contactList);
+            }
         }
 
-        private void updateSortedContactList() {
-            if (mContactListLiveData.getValue() == null) {
+        private void onContactListChanged(List<Contact> contactList) {
+            if (contactList == null) {
+                mSortedContactSource = null;
+                mSortedByFirstName = null;
+                mSortedByLastName = null;
                 setValue(null);
                 return;
             }
 
-            String key = mPreferencesLiveData.getKey();
-            String firstNameSort = mContext.getResources().getString(
-                    R.string.give_name_first_title);
-
-            List<Contact> contactList = mContactListLiveData.getValue();
-            Comparator<Contact> comparator;
-            Integer sortMethod;
-            if (mPreferencesLiveData.getValue() == null
-                    || firstNameSort.equals(
-                    mPreferencesLiveData.getValue().getString(key, firstNameSort))) {
-                comparator = mFirstNameComparator;
-                sortMethod = SORT_BY_FIRST_NAME;
-            } else {
-                comparator = mLastNameComparator;
-                sortMethod = SORT_BY_LAST_NAME;
-            }
+            String otherLabel = mContext.getString(R.string.header_for_type_other);
 
             // SingleThreadPoolExecutor is used here to avoid multiple threads sorting the list
             // at the same time.
@@ -136,13 +135,95 @@ public class ContactListViewModel extends AndroidViewModel {
             }
 
             Runnable runnable = () -> {
-                Collections.sort(contactList, comparator);
-                postValue(new Pair<>(sortMethod, contactList));
+                List<Pair<Contact, ContactSortKey>> entries = getSortKeys(contactList);
+                if (entries == null) {
+                    return;
+                }
+                SortedContactList sortedByFirstName = sort(entries, SORT_BY_FIRST_NAME,
+                        otherLabel);
+                SortedContactList sortedByLastName = sort(entries, SORT_BY_LAST_NAME,
+                        otherLabel);
+                if (Thread.currentThread().isInterrupted()) {
+                    return;
+                }
+                mMainThreadHandler.post(() -> {
+                    mSortedContactSource = contactList;
+                    mSortedByFirstName = sortedByFirstName;
+                    mSortedByLastName = sortedByLastName;
+                    updateSortMethod();
+                });
             };
             mRunnableFuture = WorkerExecutor.getInstance().getSingleThreadExecutor().submit(
                     runnable);
         }
 
+        /** Emits the materialized order matching the sort preference. */
+        private void updateSortMethod() {
+            if (mSortedByFirstName == null || mSortedByLastName == null) {
+                return;
+            }
+
+            String key = mPreferencesLiveData.getKey();
+            String firstNameSort = mContext.getResources().getString(
+                    R.string.give_name_first_title);
+            if (mPreferencesLiveData.getValue() == null
+                    || firstNameSort.equals(
+                    mPreferencesLiveData.getValue().getString(key, firstNameSort))) {
+                setValue(mSortedByFirstName);
+            } else {
+                setValue(mSortedByLastName);
+            }
+        }
+
+        /**
+         * Pairs each contact with its sort key, reusing the cached keys of unchanged contacts.
+         * Returns {@code null} if interrupted.
+         */
+        @WorkerThread
+        @Nullable
+        private List<Pair<Contact, ContactSortKey>> getSortKeys(List<Contact> contactList) {
+            Locale locale = Locale.getDefault();
+            if (!locale.equals(mSortKeyLocale)) {
+                mSortKeyCache.clear();
+                mSortKeyLocale = locale;
+            }
+
+            Collator collator = Collator.getInstance(locale);
+            Map<String, ContactSortKey> sortKeys = new HashMap<>();
+            List<Pair<Contact, ContactSortKey>> entries = new ArrayList<>(contactList.size());
+            for (Contact contact : contactList) {
+                if (Thread.currentThread().isInterrupted()) {
+                    return null;
+                }
+                ContactSortKey sortKey = mSortKeyCache.get(contact.getLookupKey());
+                if (sortKey == null || !sortKey.isValidFor(contact)) {
+                    sortKey = new ContactSortKey(contact, collator);
+                }
+                sortKeys.put(contact.getLookupKey(), sortKey);
+                entries.add(new Pair<>(contact, sortKey));
+            }
+
+            // Drop the keys of removed contacts.
+            mSortKeyCache.clear();
+            mSortKeyCache.putAll(sortKeys);
+            return entries;
+        }
+
+        @WorkerThread
+        private static SortedContactList sort(List<Pair<Contact, ContactSortKey>> entries,
+                int sortMethod, String otherLabel) {
+            boolean byLastName = sortMethod == SORT_BY_LAST_NAME;
+            List<Pair<Contact, ContactSortKey>> sortedEntries = new ArrayList<>(entries);
+            Collections.sort(sortedEntries,
+                    (o1, o2) -> o1.second.compareTo(o2.second, byLastName));
+
+            List<Contact> contacts = new ArrayList<>(sortedEntries.size());
+            for (Pair<Contact, ContactSortKey> entry : sortedEntries) {
+                contacts.add(entry.first);
+            }
+            return new SortedContactList(sortMethod, contacts, otherLabel);
+        }
+
         @Override
         protected void onInactive() {
             super.onInactive();
@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.dialer.ui.contact;
+
+import android.text.TextUtils;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.android.car.telephony.common.Contact;
+
+import java.text.CollationKey;
+import java.text.Collator;
+
+/**
+ * Precomputed {@link CollationKey}s of a contact for sorting by first name and by last name.
+ * Comparing two keys doesn't collate the names again. Contacts are ordered by phonebook label
+ * first, with labels that are not letters last, so that each header section is contiguous.
+ */
+final class ContactSortKey {
+    private final String mDisplayName;
+    private final String mAltDisplayName;
+    private final String mPhonebookLabel;
+    private final String mPhonebookLabelAlt;
+
+    private final boolean mIsOtherLabel;
+    private final boolean mIsOtherLabelAlt;
+    private final CollationKey mLabelKey;
+    private final CollationKey mLabelAltKey;
+    private final CollationKey mNameKey;
+    private final CollationKey mAltNameKey;
+
+    /**
+     * Computes the keys of the contact. The collator must only be used by the calling thread.
+     */
+    ContactSortKey(@NonNull Contact contact, @NonNull Collator collator) {
+        mDisplayName = contact.getDisplayName();
+        mAltDisplayName = contact.getAltDisplayName();
+        mPhonebookLabel = contact.getPhonebookLabel();
+        mPhonebookLabelAlt = contact.getPhonebookLabelAlt();
+
+        mIsOtherLabel = isOtherLabel(mPhonebookLabel);
+        mIsOtherLabelAlt = isOtherLabel(mPhonebookLabelAlt);
+        mLabelKey = collator.getCollationKey(nullToEmpty(mPhonebookLabel));
+        mLabelAltKey = collator.getCollationKey(nullToEmpty(mPhonebookLabelAlt));
+        mNameKey = collator.getCollationKey(nullToEmpty(mDisplayName));
+        // Unstructured names don't have an alternative display name, use the display name.
+        mAltNameKey = TextUtils.isEmpty(mAltDisplayName) ? mNameKey
+                : collator.getCollationKey(mAltDisplayName);
+    }
+
+    /**
+     * Returns whether the keys were computed from the same names and labels as the given contact,
+     * in which case they can be reused for it.
+     */
+    boolean isValidFor(@NonNull Contact contact) {
+        return TextUtils.equals(mDisplayName, contact.getDisplayName())
+                && TextUtils.equals(mAltDisplayName, contact.getAltDisplayName())
+                && TextUtils.equals(mPhonebookLabel, contact.getPhonebookLabel())
+                && TextUtils.equals(mPhonebookLabelAlt, contact.getPhonebookLabelAlt());
+    }
+
+    /** Compares by display name, or by alternative display name if {@code byLastName} is true. */
+    int compareTo(@NonNull ContactSortKey other, boolean byLastName) {
+        int result = byLastName
+                ? Boolean.compare(mIsOtherLabelAlt, other.mIsOtherLabelAlt)
+                : Boolean.compare(mIsOtherLabel, other.mIsOtherLabel);
+        if (result != 0) {
+            return result;
+        }
+        result = byLastName
+                ? mLabelAltKey.compareTo(other.mLabelAltKey)
+                : mLabelKey.compareTo(other.mLabelKey);
+        if (result != 0) {
+            return result;
+        }
+        return byLastName
+                ? mAltNameKey.compareTo(other.mAltNameKey)
+                : mNameKey.compareTo(other.mNameKey);
+    }
+
+    private static boolean isOtherLabel(@Nullable String label) {
+        return TextUtils.isEmpty(label) || !Character.isLetter(label.charAt(0));
+    }
+
+    private static String nullToEmpty(@Nullable String string) {
+        return string == null ? "" : string;
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.dialer.ui.contact;
+
+import android.text.TextUtils;
+
+import androidx.annotation.NonNull;
+
+import com.android.car.telephony.common.Contact;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An immutable list of sorted contacts with a precomputed section index. Each section groups the
+ * consecutive contacts sharing the same phonebook label for the sort method, so looking up the
+ * header of a position doesn't need to compare labels.
+ */
+public final class SortedContactList {
+    private final int mSortMethod;
+    private final List<Contact> mContacts;
+    private final String[] mSections;
+    /** The position of the first contact of each section. */
+    private final int[] mSectionPositions;
+    /** The section of each position. */
+    private final int[] mSectionForPosition;
+
+    /**
+     * @param sortMethod The sort method of the contacts, {@link
+     *                   ContactListViewModel#SORT_BY_FIRST_NAME} or {@link
+     *                   ContactListViewModel#SORT_BY_LAST_NAME}.
+     * @param contacts   The contacts sorted by the sort method.
+     * @param otherLabel The label for contacts without a phonebook label.
+     */
+    public SortedContactList(int sortMethod, @NonNull List<Contact> contacts,
+            @NonNull String otherLabel) {
+        mSortMethod = sortMethod;
+        mContacts = Collections.unmodifiableList(new ArrayList<>(contacts));
+        mSectionForPosition = new int[mContacts.size()];
+
+        List<String> sections = new ArrayList<>();
+        List<Integer> sectionPositions = new ArrayList<>();
+        for (int i = 0; i < mContacts.size(); i++) {
+            String label = getLabel(mContacts.get(i), otherLabel);
+            if (sections.isEmpty() || !label.equals(sections.get(sections.size() - 1))) {
+                sections.add(label);
+                sectionPositions.add(i);
+            }
+            mSectionForPosition[i] = sections.size() - 1;
+        }
+
+        mSections = sections.toArray(new String[0]);
+        mSectionPositions = new int[sectionPositions.size()];
+        for (int i = 0; i < mSectionPositions.length; i++) {
+            mSectionPositions[i] = sectionPositions.get(i);
+        }
+    }
+
+    /** Returns the sort method of the contacts. */
+    public int getSortMethod() {
+        return mSortMethod;
+    }
+
+    /** Returns the unmodifiable list of sorted contacts. */
+    @NonNull
+    public List<Contact> getContacts() {
+        return mContacts;
+    }
+
+    /** Returns whether the contact at the position is the first one of its section. */
+    public boolean isSectionStart(int position) {
+        return mSectionPositions[mSectionForPosition[position]] == position;
+    }
+
+    /** Returns the header label of the section the position belongs to. */
+    @NonNull
+    public String getSectionLabel(int position) {
+        return mSections[mSectionForPosition[position]];
+    }
+
+    private String getLabel(Contact contact, String otherLabel) {
+        String label = mSortMethod == ContactListViewModel.SORT_BY_LAST_NAME
+                ? contact.getPhonebookLabelAlt()
+                : contact.getPhonebookLabel();
+        return !TextUtils.isEmpty(label) ? label : otherLabel;
+    }
+}
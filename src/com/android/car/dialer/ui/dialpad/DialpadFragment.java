@@ -32,18 +32,21 @@ import android.widget.TextView;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.lifecycle.ViewModelProviders;
 
 import com.android.car.apps.common.util.ViewUtils;
 import com.android.car.dialer.R;
 import com.android.car.dialer.log.L;
+import com.android.car.dialer.telecom.PhoneNumberCache;
 import com.android.car.dialer.telecom.UiCallManager;
 import com.android.car.telephony.common.Contact;
 import com.android.car.telephony.common.InMemoryPhoneBook;
-import com.android.car.telephony.common.TelecomUtils;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableMap;
 
+import java.util.List;
+
 /** Fragment that controls the dialpad. */
 public class DialpadFragment extends AbstractDialpadFragment {
     private static final String TAG = "CD.DialpadFragment";
@@ -75,10 +78,16 @@ public class DialpadFragment extends AbstractDialpadFragment {
 
     private TextView mTitleView;
     private TextView mDisplayName;
+    private TextView mContactSuggestion;
     private ImageButton mDeleteButton;
     private int mMode;
 
     private ToneGenerator mToneGenerator;
+    private DialpadViewModel mDialpadViewModel;
+    /** The contact whose number is exactly the dialed number, if any. */
+    private Contact mExactMatchContact;
+    /** The suggestions for the dialed number, {@code null} until they are computed. */
+    private List<Contact> mContactSuggestions;
 
     /**
      * Creates a new instance of the {@link DialpadFragment} which is used for dialing a number.
@@ -108,6 +117,14 @@ public class DialpadFragment extends AbstractDialpadFragment {
         mMode = getArguments().getInt(DIALPAD_MODE_KEY);
         L.d(TAG, "onCreate mode: %s", mMode);
         mToneGenerator = new ToneGenerator(AudioManager.STREAM_MUSIC, TONE_RELATIVE_VOLUME);
+        mDialpadViewModel = ViewModelProviders.of(this).get(DialpadViewModel.class);
+        mDialpadViewModel.getContactSuggestions().observe(this, suggestions -> {
+            // Ignore the suggestions of a number that is no longer dialed.
+            if (TextUtils.equals(suggestions.first, getNumber().toString())) {
+                mContactSuggestions = suggestions.second;
+                updateDisplayName();
+            }
+        });
     }
 
     @Override
@@ -122,6 +139,7 @@ public class DialpadFragment extends AbstractDialpadFragment {
                 mMode == MODE_EMERGENCY ? R.style.TextAppearance_EmergencyDialNumber
                         : R.style.TextAppearance_DialNumber);
         mDisplayName = rootView.findViewById(R.id.display_name);
+        mContactSuggestion = rootView.findViewById(R.id.contact_suggestion);
 
         View callButton = rootView.findViewById(R.id.call_button);
         callButton.setOnClickListener(v -> {
@@ -215,7 +233,7 @@ public class DialpadFragment extends AbstractDialpadFragment {
             mTitleView.setGravity(Gravity.END | Gravity.CENTER_VERTICAL);
             if (number.length() <= MAX_DIAL_NUMBER) {
                 mTitleView.setText(
-                        TelecomUtils.getFormattedNumber(getContext(), number.toString()));
+                        PhoneNumberCache.get(getContext()).getFormattedNumber(number.toString()));
             } else {
                 mTitleView.setText(number.substring(number.length() - MAX_DIAL_NUMBER));
             }
@@ -226,9 +244,31 @@ public class DialpadFragment extends AbstractDialpadFragment {
     }
 
     private void presentContactName(@NonNull StringBuffer number) {
-        Contact contact = InMemoryPhoneBook.get().lookupContactEntry(number.toString());
+        // The exact match is a hash lookup, the partial matches are computed in the background.
+        mExactMatchContact = InMemoryPhoneBook.get().lookupContactEntry(number.toString());
+        // The suggestions of the previous digits no longer apply.
+        mContactSuggestions = null;
+        mDialpadViewModel.setDialedNumber(number.toString());
+        updateDisplayName();
+    }
+
+    /**
+     * Shows the name of the contact whose number is dialed. Otherwise the best suggestion is shown
+     * in its own view, as it only partially matches the dialed number.
+     */
+    private void updateDisplayName() {
+        Contact contact = mExactMatchContact;
         // OEM might remove the display name view.
         ViewUtils.setText(mDisplayName, contact == null ? "" : contact.getDisplayName());
+
+        Contact suggestion = null;
+        if (contact == null && mMode == MODE_DIAL && mContactSuggestions != null
+                && !mContactSuggestions.isEmpty()) {
+            suggestion = mContactSuggestions.get(0);
+        }
+        ViewUtils.setVisible(mContactSuggestion, suggestion != null);
+        ViewUtils.setText(mContactSuggestion, suggestion == null ? ""
+                : getString(R.string.dialpad_contact_suggestion, suggestion.getDisplayName()));
     }
 
     private int getTopOffset() {
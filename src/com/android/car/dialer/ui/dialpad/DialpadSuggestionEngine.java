@@ -0,0 +1,121 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.dialer.ui.dialpad;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.android.car.dialer.ui.search.ContactSearchIndex;
+import com.android.car.telephony.common.Contact;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Suggests the contacts matching the digits dialed on the dialpad, by number or by the T9 digits
+ * of their names, ranked by {@link ContactSearchIndex#getDigitsMatchRank}.
+ *
+ * <p>The suggestions of each prefix of the dialed digits are kept, so appending a digit only
+ * filters the previous suggestions and removing one reuses the suggestions computed before.
+ * The kept suggestions are dropped whenever the index changes. It is not thread safe.
+ */
+public final class DialpadSuggestionEngine {
+    private final ContactSearchIndex mContactSearchIndex;
+    /** The dialed digits of each computed suggestion list, each one a prefix of the next. */
+    private final List<String> mDigitsStack = new ArrayList<>();
+    private final List<List<Contact>> mSuggestionsStack = new ArrayList<>();
+    /** The version of the index the kept suggestions are computed from. */
+    private int mIndexVersion;
+
+    /** Creates an engine which suggests the contacts of the given index. */
+    public DialpadSuggestionEngine(@NonNull ContactSearchIndex contactSearchIndex) {
+        mContactSearchIndex = contactSearchIndex;
+        mIndexVersion = contactSearchIndex.getVersion();
+    }
+
+    /** Updates the indexed contacts. */
+    public void update(@Nullable List<Contact> contactList) {
+        mContactSearchIndex.update(contactList);
+    }
+
+    /** Returns the ranked contacts matching the dialed number. */
+    @NonNull
+    public List<Contact> getSuggestions(@Nullable String number) {
+        String digits = getDigits(number);
+        if (digits.isEmpty() || mIndexVersion != mContactSearchIndex.getVersion()) {
+            mIndexVersion = mContactSearchIndex.getVersion();
+            mDigitsStack.clear();
+            mSuggestionsStack.clear();
+        }
+        if (digits.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        // Drop the suggestions of the digits that are no longer dialed.
+        int top = mDigitsStack.size() - 1;
+        while (top >= 0 && !digits.startsWith(mDigitsStack.get(top))) {
+            mDigitsStack.remove(top);
+            mSuggestionsStack.remove(top);
+            top--;
+        }
+        if (top >= 0 && digits.equals(mDigitsStack.get(top))) {
+            return mSuggestionsStack.get(top);
+        }
+
+        List<Contact> candidates = top >= 0
+                ? mContactSearchIndex.refine(mSuggestionsStack.get(top), digits)
+                : mContactSearchIndex.search(digits);
+        List<Contact> suggestions = rank(candidates, digits);
+        mDigitsStack.add(digits);
+        mSuggestionsStack.add(suggestions);
+        return suggestions;
+    }
+
+    private List<Contact> rank(List<Contact> candidates, String digits) {
+        Map<Contact, Integer> ranks = new HashMap<>(candidates.size());
+        List<Contact> suggestions = new ArrayList<>(candidates.size());
+        for (Contact contact : candidates) {
+            int rank = mContactSearchIndex.getDigitsMatchRank(contact, digits);
+            if (rank != ContactSearchIndex.RANK_NO_MATCH) {
+                ranks.put(contact, rank);
+                suggestions.add(contact);
+            }
+        }
+        Collections.sort(suggestions, (o1, o2) -> {
+            int result = Integer.compare(ranks.get(o1), ranks.get(o2));
+            return result != 0 ? result : o1.compareByDisplayName(o2);
+        });
+        return Collections.unmodifiableList(suggestions);
+    }
+
+    private static String getDigits(@Nullable String number) {
+        if (number == null) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder(number.length());
+        for (int i = 0; i < number.length(); i++) {
+            char c = number.charAt(i);
+            if (c >= '0' && c <= '9') {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+}
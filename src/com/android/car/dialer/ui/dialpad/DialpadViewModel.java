@@ -0,0 +1,117 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.dialer.ui.dialpad;
+
+import android.app.Application;
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.text.TextUtils;
+
+import androidx.annotation.NonNull;
+import androidx.core.util.Pair;
+import androidx.lifecycle.AndroidViewModel;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MediatorLiveData;
+import androidx.lifecycle.MutableLiveData;
+
+import com.android.car.dialer.telecom.PhoneNumberCache;
+import com.android.car.dialer.ui.search.ContactSearchIndex;
+import com.android.car.dialer.widget.WorkerExecutor;
+import com.android.car.telephony.common.Contact;
+import com.android.car.telephony.common.InMemoryPhoneBook;
+
+import java.util.Collections;
+import java.util.List;
+
+/** View model for {@link DialpadFragment}. */
+public class DialpadViewModel extends AndroidViewModel {
+    private final MutableLiveData<String> mDialedNumberLiveData;
+    private final ContactSuggestionsLiveData mContactSuggestionsLiveData;
+
+    public DialpadViewModel(@NonNull Application application) {
+        super(application);
+        mDialedNumberLiveData = new MutableLiveData<>();
+        mContactSuggestionsLiveData = new ContactSuggestionsLiveData(application,
+                mDialedNumberLiveData);
+    }
+
+    /** Sets the number dialed on the dialpad. */
+    void setDialedNumber(String number) {
+        if (TextUtils.equals(mDialedNumberLiveData.getValue(), number)) {
+            return;
+        }
+
+        mDialedNumberLiveData.setValue(number);
+    }
+
+    /** Returns the dialed number and the ranked contacts matching it. */
+    LiveData<Pair<String, List<Contact>>> getContactSuggestions() {
+        return mContactSuggestionsLiveData;
+    }
+
+    /**
+     * Runs the {@link DialpadSuggestionEngine} on the worker thread. Suggestions computed for a
+     * number that is no longer dialed are dropped. The dialed number is validated on the way so
+     * that placing the call finds the result in the {@link PhoneNumberCache}.
+     */
+    private static class ContactSuggestionsLiveData
+            extends MediatorLiveData<Pair<String, List<Contact>>> {
+        private final LiveData<String> mDialedNumberLiveData;
+        private final PhoneNumberCache mPhoneNumberCache;
+        private final Handler mMainThreadHandler = new Handler(Looper.getMainLooper());
+        private int mGeneration;
+
+        /** Only accessed on the worker thread. */
+        private final DialpadSuggestionEngine mSuggestionEngine =
+                new DialpadSuggestionEngine(ContactSearchIndex.get());
+
+        private ContactSuggestionsLiveData(Context context,
+                LiveData<String> dialedNumberLiveData) {
+            mDialedNumberLiveData = dialedNumberLiveData;
+            mPhoneNumberCache = PhoneNumberCache.get(context);
+
+            addSource(InMemoryPhoneBook.get().getContactsLiveData(), this::onContactsChange);
+            addSource(mDialedNumberLiveData, (number) -> suggest());
+        }
+
+        private void onContactsChange(List<Contact> contactList) {
+            WorkerExecutor.getInstance().getSingleThreadExecutor().execute(
+                    () -> mSuggestionEngine.update(contactList));
+            suggest();
+        }
+
+        private void suggest() {
+            int generation = ++mGeneration;
+            String number = mDialedNumberLiveData.getValue();
+            if (TextUtils.isEmpty(number)) {
+                setValue(new Pair<>(number, Collections.emptyList()));
+                return;
+            }
+
+            WorkerExecutor.getInstance().getSingleThreadExecutor().execute(() -> {
+                mPhoneNumberCache.isPossibleNumber(number);
+                List<Contact> suggestions = mSuggestionEngine.getSuggestions(number);
+                mMainThreadHandler.post(() -> {
+                    if (generation == mGeneration) {
+                        setValue(new Pair<>(number, suggestions));
+                    }
+                });
+            });
+        }
+    }
+}
@@ -30,6 +30,7 @@ import com.android.car.dialer.ui.search.ContactResultsFragment;
 import com.android.car.telephony.common.Contact;
 import com.android.car.telephony.common.PhoneNumber;
 
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -75,10 +76,8 @@ public class AddFavoriteFragment extends ContactResultsFragment {
                 .setNegativeButton(R.string.cancel_add_favorites_dialog, null)
                 .setPositiveButton(R.string.confirm_add_favorites_dialog,
                         (d, which) -> {
-                            for (PhoneNumber number : selectedNumbers) {
-                                favoriteViewModel.addToFavorite(mDialogAdapter.getContact(),
-                                        number);
-                            }
+                            favoriteViewModel.addToFavorite(mDialogAdapter.getContact(),
+                                    new ArrayList<>(selectedNumbers));
                             selectedNumbers.clear();
                             getFragmentManager().popBackStackImmediate();
                         })
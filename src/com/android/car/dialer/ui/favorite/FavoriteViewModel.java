@@ -25,6 +25,7 @@ import com.android.car.dialer.storage.FavoriteNumberRepository;
 import com.android.car.telephony.common.Contact;
 import com.android.car.telephony.common.PhoneNumber;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -52,4 +53,14 @@ public class FavoriteViewModel extends AndroidViewModel {
     public void addToFavorite(Contact contact, PhoneNumber phoneNumber) {
         mFavoriteNumberRepository.addToFavorite(contact, phoneNumber);
     }
+
+    /**
+     * Adds the phone numbers to favorite in a single batch.
+     *
+     * @param contact      The contact the phone numbers belong to.
+     * @param phoneNumbers The phone numbers to add to favorite.
+     */
+    public void addToFavorite(Contact contact, Collection<PhoneNumber> phoneNumbers) {
+        mFavoriteNumberRepository.addToFavorite(contact, phoneNumbers);
+    }
 }
@@ -19,13 +19,11 @@ package com.android.car.dialer.ui.search;
 import android.app.Application;
 import android.content.Context;
 import android.content.SharedPreferences;
-import android.database.Cursor;
-import android.net.Uri;
-import android.provider.ContactsContract;
+import android.os.Handler;
+import android.os.Looper;
 import android.text.TextUtils;
 
 import androidx.annotation.NonNull;
-import androidx.annotation.Nullable;
 import androidx.lifecycle.AndroidViewModel;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MediatorLiveData;
@@ -33,23 +31,18 @@ import androidx.lifecycle.MutableLiveData;
 
 import com.android.car.dialer.R;
 import com.android.car.dialer.livedata.SharedPreferencesLiveData;
+import com.android.car.dialer.widget.WorkerExecutor;
 import com.android.car.telephony.common.Contact;
 import com.android.car.telephony.common.InMemoryPhoneBook;
-import com.android.car.telephony.common.ObservableAsyncQuery;
-import com.android.car.telephony.common.QueryParam;
 
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.Future;
 
 /** {link AndroidViewModel} used for search functionality. */
 public class ContactResultsViewModel extends AndroidViewModel {
-    private static final String[] CONTACT_DETAILS_PROJECTION = {
-            ContactsContract.Contacts._ID,
-            ContactsContract.Contacts.LOOKUP_KEY
-    };
-
     private final ContactResultsLiveData mContactSearchResultsLiveData;
     private final MutableLiveData<String> mSearchQueryLiveData;
     private final SharedPreferencesLiveData mSharedPreferencesLiveData;
@@ -79,23 +72,45 @@ public class ContactResultsViewModel extends AndroidViewModel {
         return mSearchQueryLiveData.getValue();
     }
 
+    /**
+     * Searches the {@link ContactSearchIndex} of the {@link InMemoryPhoneBook} contacts. The index
+     * is updated and searched on the worker thread, so typing doesn't query the contacts
+     * provider.
+     *
+     * <p>Query changes within {@link #SEARCH_DELAY_MS} are coalesced into one search. Each search
+     * is tagged with a generation number and its results are dropped if the query, the contacts
+     * or the sort order changed meanwhile. A query extending the previous one refines the
+     * previous results instead of searching the whole index.
+     */
     private static class ContactResultsLiveData extends MediatorLiveData<List<Contact>> {
+        /** Delay to coalesce query changes while typing. */
+        private static final long SEARCH_DELAY_MS = 100;
+
         private final Context mContext;
-        private final SearchQueryParamProvider mSearchQueryParamProvider;
-        private final ObservableAsyncQuery mObservableAsyncQuery;
+        private final LiveData<String> mSearchQueryLiveData;
         private final SharedPreferencesLiveData mSharedPreferencesLiveData;
+        private final Handler mMainThreadHandler = new Handler(Looper.getMainLooper());
+        private final Runnable mSearchRunnable = this::search;
         private final Comparator<Contact> mFirstNameComparator =
                 (o1, o2) -> o1.compareByDisplayName(o2);
         private final Comparator<Contact> mLastNameComparator =
                 (o1, o2) -> o1.compareByAltDisplayName(o2);
+        private int mGeneration;
+        private Future<?> mSearchFuture;
+
+        /** Only accessed on the worker thread. */
+        private final ContactSearchIndex mContactSearchIndex = ContactSearchIndex.get();
+        /** The last query searched on the worker thread and its unsorted results. */
+        private String mLastSearchQuery;
+        private List<Contact> mLastSearchResults;
+        /** The version of the index the last results are searched from. */
+        private int mLastSearchIndexVersion;
 
         ContactResultsLiveData(Context context,
                 LiveData<String> searchQueryLiveData,
                 SharedPreferencesLiveData sharedPreferencesLiveData) {
             mContext = context;
-            mSearchQueryParamProvider = new SearchQueryParamProvider(searchQueryLiveData);
-            mObservableAsyncQuery = new ObservableAsyncQuery(mSearchQueryParamProvider,
-                    context.getContentResolver(), this::onQueryFinished);
+            mSearchQueryLiveData = searchQueryLiveData;
 
             addSource(InMemoryPhoneBook.get().getContactsLiveData(), this::onContactsChange);
             addSource(searchQueryLiveData, this::onSearchQueryChanged);
@@ -105,59 +120,74 @@ public class ContactResultsViewModel extends AndroidViewModel {
         }
 
         private void onContactsChange(List<Contact> contactList) {
-            if (contactList == null || contactList.isEmpty()) {
-                mObservableAsyncQuery.stopQuery();
-                setValue(Collections.emptyList());
-            } else {
-                mObservableAsyncQuery.startQuery();
-            }
+            // The index update is never cancelled, a newer one only applies the remaining delta.
+            WorkerExecutor.getInstance().getSingleThreadExecutor().execute(() -> {
+                mContactSearchIndex.update(contactList);
+                mLastSearchQuery = null;
+                mLastSearchResults = null;
+            });
+            searchNow();
         }
 
         private void onSearchQueryChanged(String searchQuery) {
             if (TextUtils.isEmpty(searchQuery)) {
-                mObservableAsyncQuery.stopQuery();
-                setValue(Collections.emptyList());
-            } else {
-                mObservableAsyncQuery.startQuery();
+                searchNow();
+                return;
             }
+
+            mGeneration++;
+            mMainThreadHandler.removeCallbacks(mSearchRunnable);
+            mMainThreadHandler.postDelayed(mSearchRunnable, SEARCH_DELAY_MS);
         }
 
         private void onSortOrderChanged(SharedPreferences unusedSharedPreferences) {
-            if (getValue() == null) {
-                return;
-            }
+            searchNow();
+        }
 
-            List<Contact> contacts = new ArrayList<>();
-            contacts.addAll(getValue());
-            Collections.sort(contacts, getComparator());
-            setValue(contacts);
+        private void searchNow() {
+            mMainThreadHandler.removeCallbacks(mSearchRunnable);
+            search();
         }
 
-        private void onQueryFinished(@Nullable Cursor cursor) {
-            if (cursor == null) {
+        private void search() {
+            int generation = ++mGeneration;
+            if (mSearchFuture != null) {
+                mSearchFuture.cancel(false);
+            }
+
+            String searchQuery = mSearchQueryLiveData.getValue();
+            if (TextUtils.isEmpty(searchQuery)) {
                 setValue(Collections.emptyList());
                 return;
             }
 
-            List<Contact> contacts = new ArrayList<>();
-            while (cursor.moveToNext()) {
-                int lookupColIdx = cursor.getColumnIndex(ContactsContract.Contacts.LOOKUP_KEY);
-                Contact contact = InMemoryPhoneBook.get().lookupContactByKey(
-                        cursor.getString(lookupColIdx));
-                if (contact != null) {
-                    contacts.add(contact);
-                }
-            }
-            Collections.sort(contacts, getComparator());
-            setValue(contacts);
-            cursor.close();
+            Comparator<Contact> comparator = getComparator();
+            mSearchFuture = WorkerExecutor.getInstance().getSingleThreadExecutor().submit(() -> {
+                // The shared index might have been updated by its other users.
+                boolean canRefine = mLastSearchIndexVersion == mContactSearchIndex.getVersion()
+                        && ContactSearchIndex.canRefine(mLastSearchQuery, searchQuery);
+                List<Contact> results = canRefine
+                        ? mContactSearchIndex.refine(mLastSearchResults, searchQuery)
+                        : mContactSearchIndex.search(searchQuery);
+                mLastSearchQuery = searchQuery;
+                mLastSearchResults = results;
+                mLastSearchIndexVersion = mContactSearchIndex.getVersion();
+
+                List<Contact> contacts = new ArrayList<>(results);
+                Collections.sort(contacts, comparator);
+                mMainThreadHandler.post(() -> {
+                    if (generation == mGeneration) {
+                        setValue(contacts);
+                    }
+                });
+            });
         }
 
         private Comparator<Contact> getComparator() {
             String firstNameSort = mContext.getResources().getString(
                     R.string.give_name_first_title);
             String key = mSharedPreferencesLiveData.getKey();
-            if (firstNameSort.equals(
+            if (mSharedPreferencesLiveData.getValue() == null || firstNameSort.equals(
                     mSharedPreferencesLiveData.getValue().getString(key, firstNameSort))) {
                 return mFirstNameComparator;
             } else {
@@ -165,22 +195,4 @@ public class ContactResultsViewModel extends AndroidViewModel {
             }
         }
     }
-
-    private static class SearchQueryParamProvider implements QueryParam.Provider {
-        private final LiveData<String> mSearchQueryLiveData;
-
-        private SearchQueryParamProvider(LiveData<String> searchQueryLiveData) {
-            mSearchQueryLiveData = searchQueryLiveData;
-        }
-
-        @Nullable
-        @Override
-        public QueryParam getQueryParam() {
-            Uri lookupUri = Uri.withAppendedPath(ContactsContract.Contacts.CONTENT_FILTER_URI,
-                    Uri.encode(mSearchQueryLiveData.getValue()));
-            return new QueryParam(lookupUri, CONTACT_DETAILS_PROJECTION,
-                    ContactsContract.Contacts.HAS_PHONE_NUMBER + "!=0",
-                    /* selectionArgs= */null, /* orderBy= */null);
-        }
-    }
 }
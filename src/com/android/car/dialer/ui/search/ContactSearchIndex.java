@@ -0,0 +1,422 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.dialer.ui.search;
+
+import android.text.TextUtils;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import com.android.car.telephony.common.Contact;
+import com.android.car.telephony.common.PhoneNumber;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * An in-memory search index of the contacts with phone numbers. Names are split into tokens and
+ * indexed by prefix, both as letters and as their T9 digits. Phone numbers match any substring of
+ * their digits, which is found by scanning the numbers since indexing every suffix of every number
+ * takes far more memory than the scan takes time. The index is updated incrementally when the
+ * contact list changes.
+ *
+ * <p>The index is not thread safe, it is meant to be updated and searched on a single worker
+ * thread. The contact search and the dialpad share the index returned by {@link #get()}.
+ */
+public final class ContactSearchIndex {
+    private static final Pattern DIACRITICAL_MARKS = Pattern.compile("\\p{M}+");
+    private static final String DIALABLE_CHARS = "0123456789+-.() ";
+    /** T9 digits for the letters a to z. */
+    private static final String T9_DIGITS = "22233344455566677778889999";
+
+    /** The indexed terms of a contact, kept to remove them when the contact changes. */
+    private static final class IndexedContact {
+        private final Contact mContact;
+        private final Set<String> mNameTokens;
+        private final Set<String> mT9Tokens;
+        private final Set<String> mNumbers;
+
+        private IndexedContact(Contact contact, Set<String> nameTokens, Set<String> t9Tokens,
+                Set<String> numbers) {
+            mContact = contact;
+            mNameTokens = nameTokens;
+            mT9Tokens = t9Tokens;
+            mNumbers = numbers;
+        }
+
+        private boolean hasSameTerms(IndexedContact other) {
+            return mNameTokens.equals(other.mNameTokens)
+                    && mT9Tokens.equals(other.mT9Tokens)
+                    && mNumbers.equals(other.mNumbers);
+        }
+    }
+
+    /** The dialed digits are one of the contact's numbers. */
+    public static final int RANK_EXACT_NUMBER = 0;
+    /** A number of the contact starts with the dialed digits. */
+    public static final int RANK_NUMBER_PREFIX = 1;
+    /** A word of the contact's name starts with the dialed digits on the dialpad. */
+    public static final int RANK_NAME = 2;
+    /** The dialed digits are in the middle of a number of the contact. */
+    public static final int RANK_NUMBER_PART = 3;
+    /** The dialed digits don't match the contact. */
+    public static final int RANK_NO_MATCH = Integer.MAX_VALUE;
+
+    private static ContactSearchIndex sContactSearchIndex;
+
+    /**
+     * Returns the index shared by the features searching the {@code InMemoryPhoneBook} contacts.
+     * It must only be updated and searched on the {@code WorkerExecutor} thread.
+     */
+    public static synchronized ContactSearchIndex get() {
+        if (sContactSearchIndex == null) {
+            sContactSearchIndex = new ContactSearchIndex();
+        }
+        return sContactSearchIndex;
+    }
+
+    private final Map<String, IndexedContact> mContacts = new HashMap<>();
+    private final PrefixTrie<String> mNameTrie = new PrefixTrie<>();
+    private final PrefixTrie<String> mT9Trie = new PrefixTrie<>();
+    /** Incremented whenever the indexed contacts change. */
+    private int mVersion;
+
+    /**
+     * Updates the index to the given contacts. Only the contacts added, removed or whose names or
+     * numbers changed are reindexed.
+     */
+    public void update(@Nullable List<Contact> contactList) {
+        Map<String, IndexedContact> updatedContacts = new HashMap<>();
+        if (contactList != null) {
+            for (Contact contact : contactList) {
+                String lookupKey = contact.getLookupKey();
+                if (lookupKey == null || contact.getNumbers().isEmpty()) {
+                    continue;
+                }
+                IndexedContact existing = mContacts.get(lookupKey);
+                if (existing != null && existing.mContact == contact) {
+                    updatedContacts.put(lookupKey, existing);
+                } else {
+                    updatedContacts.put(lookupKey, createIndexedContact(contact));
+                }
+            }
+        }
+
+        boolean hasChanged = updatedContacts.size() != mContacts.size();
+        for (Map.Entry<String, IndexedContact> entry : mContacts.entrySet()) {
+            IndexedContact updated = updatedContacts.get(entry.getKey());
+            if (updated == null || !updated.hasSameTerms(entry.getValue())) {
+                removeTerms(entry.getKey(), entry.getValue());
+            }
+            hasChanged |= updated != entry.getValue();
+        }
+        for (Map.Entry<String, IndexedContact> entry : updatedContacts.entrySet()) {
+            IndexedContact existing = mContacts.get(entry.getKey());
+            if (existing == null || !existing.hasSameTerms(entry.getValue())) {
+                addTerms(entry.getKey(), entry.getValue());
+            }
+        }
+
+        mContacts.clear();
+        mContacts.putAll(updatedContacts);
+        if (hasChanged) {
+            mVersion++;
+        }
+    }
+
+    /**
+     * Returns the version of the indexed contacts. Results computed from the index are outdated
+     * once the version changes, e.g. when another user of the shared index updates it.
+     */
+    public int getVersion() {
+        return mVersion;
+    }
+
+    /**
+     * Returns the contacts matching every word of the query, in no particular order. A word
+     * matches the prefix of a name token, or, if it is made of digits, the T9 digits of a name
+     * token or part of a phone number.
+     */
+    @NonNull
+    public List<Contact> search(@Nullable String query) {
+        if (TextUtils.isEmpty(query)) {
+            return Collections.emptyList();
+        }
+
+        List<String> queryTokens = getQueryTokens(query);
+        Set<String> matches = null;
+        for (String queryToken : queryTokens) {
+            if (queryToken.isEmpty()) {
+                continue;
+            }
+            Set<String> tokenMatches = new HashSet<>();
+            mNameTrie.collect(queryToken, tokenMatches);
+            if (TextUtils.isDigitsOnly(queryToken)) {
+                mT9Trie.collect(queryToken, tokenMatches);
+                collectNumberMatches(queryToken, tokenMatches);
+            }
+
+            if (matches == null) {
+                matches = tokenMatches;
+            } else {
+                matches.retainAll(tokenMatches);
+            }
+            if (matches.isEmpty()) {
+                break;
+            }
+        }
+
+        if (matches == null || matches.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Contact> contacts = new ArrayList<>(matches.size());
+        for (String lookupKey : matches) {
+            contacts.add(mContacts.get(lookupKey).mContact);
+        }
+        return contacts;
+    }
+
+    /**
+     * Returns whether the results of the query are a subset of the results of the previous query,
+     * so they can be found with {@link #refine} instead of searching the whole index. This is the
+     * case when the query extends the previous one and both are parsed the same way.
+     */
+    public static boolean canRefine(@Nullable String previousQuery, @Nullable String query) {
+        return !TextUtils.isEmpty(previousQuery) && !TextUtils.isEmpty(query)
+                && query.startsWith(previousQuery)
+                && isDialable(previousQuery) == isDialable(query);
+    }
+
+    /**
+     * Returns the contacts of the previous results that match the query, in the same order. See
+     * {@link #canRefine} for when the result is the same as {@link #search}.
+     */
+    @NonNull
+    public List<Contact> refine(@NonNull List<Contact> previousResults, @Nullable String query) {
+        if (TextUtils.isEmpty(query)) {
+            return Collections.emptyList();
+        }
+
+        List<String> queryTokens = getQueryTokens(query);
+        List<Contact> contacts = new ArrayList<>();
+        for (Contact contact : previousResults) {
+            IndexedContact indexedContact = mContacts.get(contact.getLookupKey());
+            if (indexedContact != null && matches(indexedContact, queryTokens)) {
+                contacts.add(indexedContact.mContact);
+            }
+        }
+        return contacts;
+    }
+
+    /**
+     * Returns how well the dialed digits match the contact, from {@link #RANK_EXACT_NUMBER} for
+     * the best match to {@link #RANK_NO_MATCH}.
+     */
+    public int getDigitsMatchRank(@NonNull Contact contact, @NonNull String digits) {
+        IndexedContact indexedContact = mContacts.get(contact.getLookupKey());
+        if (indexedContact == null || digits.isEmpty()) {
+            return RANK_NO_MATCH;
+        }
+
+        int rank = RANK_NO_MATCH;
+        for (String number : indexedContact.mNumbers) {
+            if (number.equals(digits)) {
+                return RANK_EXACT_NUMBER;
+            } else if (number.startsWith(digits)) {
+                rank = RANK_NUMBER_PREFIX;
+            } else if (rank > RANK_NUMBER_PART && number.contains(digits)) {
+                rank = RANK_NUMBER_PART;
+            }
+        }
+        if (rank > RANK_NAME && startsWithAny(indexedContact.mT9Tokens, digits)) {
+            rank = RANK_NAME;
+        }
+        return rank;
+    }
+
+    /** Returns the number of indexed contacts. */
+    @VisibleForTesting
+    int size() {
+        return mContacts.size();
+    }
+
+    private static List<String> getQueryTokens(String query) {
+        return isDialable(query)
+                ? Collections.singletonList(getDigits(query))
+                : tokenize(query);
+    }
+
+    private static boolean matches(IndexedContact indexedContact, List<String> queryTokens) {
+        for (String queryToken : queryTokens) {
+            if (queryToken.isEmpty()) {
+                continue;
+            }
+            boolean isDigits = TextUtils.isDigitsOnly(queryToken);
+            if (!startsWithAny(indexedContact.mNameTokens, queryToken)
+                    && !(isDigits && startsWithAny(indexedContact.mT9Tokens, queryToken))
+                    && !(isDigits && containsAny(indexedContact.mNumbers, queryToken))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void collectNumberMatches(String digits, Set<String> result) {
+        for (Map.Entry<String, IndexedContact> entry : mContacts.entrySet()) {
+            if (containsAny(entry.getValue().mNumbers, digits)) {
+                result.add(entry.getKey());
+            }
+        }
+    }
+
+    private static boolean startsWithAny(Set<String> terms, String prefix) {
+        for (String term : terms) {
+            if (term.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean containsAny(Set<String> terms, String part) {
+        for (String term : terms) {
+            if (term.contains(part)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void addTerms(String lookupKey, IndexedContact indexedContact) {
+        for (String token : indexedContact.mNameTokens) {
+            mNameTrie.put(token, lookupKey);
+        }
+        for (String token : indexedContact.mT9Tokens) {
+            mT9Trie.put(token, lookupKey);
+        }
+    }
+
+    private void removeTerms(String lookupKey, IndexedContact indexedContact) {
+        for (String token : indexedContact.mNameTokens) {
+            mNameTrie.remove(token, lookupKey);
+        }
+        for (String token : indexedContact.mT9Tokens) {
+            mT9Trie.remove(token, lookupKey);
+        }
+    }
+
+    private static IndexedContact createIndexedContact(Contact contact) {
+        Set<String> nameTokens = new HashSet<>(tokenize(contact.getDisplayName()));
+        nameTokens.addAll(tokenize(contact.getAltDisplayName()));
+
+        Set<String> t9Tokens = new HashSet<>();
+        for (String token : nameTokens) {
+            String t9Token = toT9(token);
+            if (t9Token != null) {
+                t9Tokens.add(t9Token);
+            }
+        }
+
+        Set<String> numbers = new HashSet<>();
+        for (PhoneNumber phoneNumber : contact.getNumbers()) {
+            String digits = getDigits(phoneNumber.getRawNumber());
+            if (!digits.isEmpty()) {
+                numbers.add(digits);
+            }
+        }
+        return new IndexedContact(contact, nameTokens, t9Tokens, numbers);
+    }
+
+    /** Splits the text into lower case words without diacritical marks. */
+    @VisibleForTesting
+    static List<String> tokenize(@Nullable String text) {
+        if (TextUtils.isEmpty(text)) {
+            return Collections.emptyList();
+        }
+
+        String normalized = DIACRITICAL_MARKS.matcher(
+                Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        normalized = normalized.toLowerCase(Locale.getDefault());
+
+        List<String> tokens = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= normalized.length(); i++) {
+            boolean isWordChar = i < normalized.length()
+                    && Character.isLetterOrDigit(normalized.charAt(i));
+            if (isWordChar && start < 0) {
+                start = i;
+            } else if (!isWordChar && start >= 0) {
+                tokens.add(normalized.substring(start, i));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Returns the T9 digits of the token, or {@code null} if it has characters outside of a to z
+     * and 0 to 9.
+     */
+    @VisibleForTesting
+    @Nullable
+    static String toT9(@NonNull String token) {
+        StringBuilder sb = new StringBuilder(token.length());
+        for (int i = 0; i < token.length(); i++) {
+            char c = token.charAt(i);
+            if (c >= 'a' && c <= 'z') {
+                sb.append(T9_DIGITS.charAt(c - 'a'));
+            } else if (c >= '0' && c <= '9') {
+                sb.append(c);
+            } else {
+                return null;
+            }
+        }
+        return sb.toString();
+    }
+
+    private static boolean isDialable(String query) {
+        for (int i = 0; i < query.length(); i++) {
+            if (DIALABLE_CHARS.indexOf(query.charAt(i)) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String getDigits(@Nullable String number) {
+        if (number == null) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder(number.length());
+        for (int i = 0; i < number.length(); i++) {
+            char c = number.charAt(i);
+            if (c >= '0' && c <= '9') {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+}
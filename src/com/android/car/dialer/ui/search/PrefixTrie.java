@@ -0,0 +1,126 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.dialer.ui.search;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A trie mapping string keys to values, which finds all the values of the keys starting with a
+ * given prefix. It is not thread safe.
+ */
+final class PrefixTrie<V> {
+
+    /** A node of the trie. Its collections are only allocated once they hold something. */
+    private static final class Node<V> {
+        private Map<Character, Node<V>> mChildren;
+        private Set<V> mValues;
+
+        @Nullable
+        private Node<V> getChild(char c) {
+            return mChildren != null ? mChildren.get(c) : null;
+        }
+
+        private boolean isEmpty() {
+            return mChildren == null && mValues == null;
+        }
+    }
+
+    private final Node<V> mRoot = new Node<>();
+
+    /** Adds the value under the key. */
+    void put(@NonNull String key, @NonNull V value) {
+        Node<V> node = mRoot;
+        for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+            Node<V> child = node.getChild(c);
+            if (child == null) {
+                child = new Node<>();
+                if (node.mChildren == null) {
+                    // Most nodes have a single child.
+                    node.mChildren = new HashMap<>(/* initialCapacity= */ 2);
+                }
+                node.mChildren.put(c, child);
+            }
+            node = child;
+        }
+        if (node.mValues == null) {
+            node.mValues = new HashSet<>(/* initialCapacity= */ 2);
+        }
+        node.mValues.add(value);
+    }
+
+    /** Removes the value from the key, pruning the nodes left empty. */
+    void remove(@NonNull String key, @NonNull V value) {
+        Deque<Node<V>> path = new ArrayDeque<>();
+        Node<V> node = mRoot;
+        for (int i = 0; i < key.length(); i++) {
+            path.push(node);
+            node = node.getChild(key.charAt(i));
+            if (node == null) {
+                return;
+            }
+        }
+        if (node.mValues == null || !node.mValues.remove(value)) {
+            return;
+        }
+        if (node.mValues.isEmpty()) {
+            node.mValues = null;
+        }
+
+        for (int i = key.length() - 1; i >= 0 && node.isEmpty(); i--) {
+            Node<V> parent = path.pop();
+            parent.mChildren.remove(key.charAt(i));
+            if (parent.mChildren.isEmpty()) {
+                parent.mChildren = null;
+            }
+            node = parent;
+        }
+    }
+
+    /** Adds the values of all the keys starting with the prefix to the result. */
+    void collect(@NonNull String prefix, @NonNull Set<V> result) {
+        Node<V> node = mRoot;
+        for (int i = 0; i < prefix.length() && node != null; i++) {
+            node = node.getChild(prefix.charAt(i));
+        }
+        if (node == null) {
+            return;
+        }
+
+        Deque<Node<V>> nodes = new ArrayDeque<>();
+        nodes.push(node);
+        while (!nodes.isEmpty()) {
+            Node<V> current = nodes.pop();
+            if (current.mValues != null) {
+                result.addAll(current.mValues);
+            }
+            if (current.mChildren != null) {
+                for (Node<V> child : current.mChildren.values()) {
+                    nodes.push(child);
+                }
+            }
+        }
+    }
+}
@@ -15,102 +15,109 @@
  */
 package com.android.car.dialer.ui.view;
 
-import android.content.res.Resources;
 import android.graphics.Bitmap;
+import android.graphics.BitmapShader;
 import android.graphics.Canvas;
 import android.graphics.ColorFilter;
+import android.graphics.Matrix;
+import android.graphics.Paint;
 import android.graphics.PixelFormat;
 import android.graphics.Rect;
+import android.graphics.RectF;
+import android.graphics.Shader;
 import android.graphics.drawable.Drawable;
 
 import androidx.annotation.NonNull;
-import androidx.core.graphics.drawable.RoundedBitmapDrawable;
-import androidx.core.graphics.drawable.RoundedBitmapDrawableFactory;
-
 
 /**
- * A drawable for displaying a circular bitmap. This is a wrapper over {@link RoundedBitmapDrawable}
- * since that implementation doesn't behave quite as desired.
+ * A drawable for displaying a circular bitmap, scaled to fill its bounds and clipped to the
+ * largest circle that fits in them.
  *
- * <p>Note that not all drawable functionality is passed to the RoundedBitmapDrawable at this
- * time. Feel free to add more as necessary.
+ * <p>The {@link BitmapShader} is built once, bounds changes only update its matrix and the
+ * circle radius. The bitmap returned by {@link #toBitmap(int)} is cached until the size, alpha
+ * or color filter changes.
  */
 public class CircleBitmapDrawable extends Drawable {
-    private final Resources mResources;
+    private final Bitmap mBitmap;
+    private final BitmapShader mShader;
+    private final Paint mPaint = new Paint(Paint.ANTI_ALIAS_FLAG | Paint.FILTER_BITMAP_FLAG);
+    private final Matrix mShaderMatrix = new Matrix();
+    private final RectF mDstRect = new RectF();
+    private float mRadius;
 
-    private Bitmap mBitmap;
-    private RoundedBitmapDrawable mDrawable;
-    private int mAlpha = -1;
-    private ColorFilter mCf = null;
+    private Bitmap mCachedBitmap;
 
-    public CircleBitmapDrawable(@NonNull Resources res, @NonNull Bitmap bitmap) {
+    public CircleBitmapDrawable(@NonNull Bitmap bitmap) {
         mBitmap = bitmap;
-        mResources = res;
+        mShader = new BitmapShader(bitmap, Shader.TileMode.CLAMP, Shader.TileMode.CLAMP);
+        mPaint.setShader(mShader);
     }
 
     @Override
     public void onBoundsChange(Rect bounds) {
         super.onBoundsChange(bounds);
-        int width = bounds.right - bounds.left;
-        int height = bounds.bottom - bounds.top;
-
-        Bitmap processed = mBitmap;
-        mDrawable = RoundedBitmapDrawableFactory.create(mResources, processed);
-        mDrawable.setBounds(bounds);
-        mDrawable.setAntiAlias(true);
-        mDrawable.setCornerRadius(Math.min(width, height) / 2f);
-        if (mAlpha != -1) {
-            mDrawable.setAlpha(mAlpha);
-        }
-        if (mCf != null) {
-            mDrawable.setColorFilter(mCf);
-        }
+        mDstRect.set(bounds);
+        updateShaderMatrix(mDstRect);
+        mRadius = Math.min(mDstRect.width(), mDstRect.height()) / 2f;
         invalidateSelf();
     }
 
     @Override
     public void draw(Canvas canvas) {
-        if (mDrawable != null) {
-            mDrawable.draw(canvas);
+        if (mDstRect.isEmpty()) {
+            return;
         }
+        canvas.drawRoundRect(mDstRect, mRadius, mRadius, mPaint);
     }
 
     @Override
     public int getOpacity() {
-        return mDrawable != null ? mDrawable.getOpacity() : PixelFormat.TRANSLUCENT;
+        return PixelFormat.TRANSLUCENT;
     }
 
     @Override
     public void setAlpha(int alpha) {
-        mAlpha = alpha;
-        if (mDrawable != null) {
-            mDrawable.setAlpha(alpha);
+        if (mPaint.getAlpha() != alpha) {
+            mPaint.setAlpha(alpha);
+            mCachedBitmap = null;
             invalidateSelf();
         }
     }
 
     @Override
     public void setColorFilter(ColorFilter cf) {
-        mCf = cf;
-        if (mDrawable != null) {
-            mDrawable.setColorFilter(cf);
-            invalidateSelf();
-        }
+        mPaint.setColorFilter(cf);
+        mCachedBitmap = null;
+        invalidateSelf();
     }
 
     /**
-     * Convert the drawable to a bitmap.
+     * Convert the drawable to a bitmap. The bitmap is shared by the calls with the same size and
+     * must not be modified.
      * @param size The target size of the bitmap in pixels.
      * @return A bitmap representation of the drawable.
      */
     public Bitmap toBitmap(int size) {
+        if (mCachedBitmap != null && mCachedBitmap.getWidth() == size) {
+            return mCachedBitmap;
+        }
+
         Bitmap largeIcon = Bitmap.createBitmap(size, size, Bitmap.Config.ARGB_8888);
         Canvas canvas = new Canvas(largeIcon);
-        Rect bounds = getBounds();
-        setBounds(0, 0, canvas.getWidth(), canvas.getHeight());
-        draw(canvas);
-        setBounds(bounds);
+        RectF rect = new RectF(0, 0, size, size);
+        updateShaderMatrix(rect);
+        canvas.drawRoundRect(rect, size / 2f, size / 2f, mPaint);
+        updateShaderMatrix(mDstRect);
+
+        mCachedBitmap = largeIcon;
         return largeIcon;
     }
-}
 
+    /** Scales the bitmap to fill the rect. */
+    private void updateShaderMatrix(RectF rect) {
+        mShaderMatrix.setScale(rect.width() / mBitmap.getWidth(),
+                rect.height() / mBitmap.getHeight());
+        mShaderMatrix.postTranslate(rect.left, rect.top);
+        mShader.setLocalMatrix(mShaderMatrix);
+    }
+}
@@ -0,0 +1,234 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.dialer.livedata;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import android.database.MatrixCursor;
+import android.provider.CallLog;
+
+import com.android.car.dialer.CarDialerRobolectricTestRunner;
+import com.android.car.dialer.widget.WorkerExecutor;
+import com.android.car.telephony.common.ObservableAsyncQuery;
+import com.android.car.telephony.common.PhoneCallLog;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.List;
+
+@RunWith(CarDialerRobolectricTestRunner.class)
+public class CallHistoryLiveDataTest {
+    private static final int PAGE_SIZE = 2;
+    private static final String NUMBER_1 = "6505551234";
+    private static final String NUMBER_2 = "6505554321";
+    private static final String NUMBER_3 = "6505550000";
+    private static final String[] COLUMNS = {
+            CallLog.Calls._ID,
+            CallLog.Calls.NUMBER,
+            CallLog.Calls.DATE,
+            CallLog.Calls.DURATION,
+            CallLog.Calls.TYPE,
+            CallLog.Calls.COUNTRY_ISO,
+            CallLog.Calls.CACHED_NAME,
+            CallLog.Calls.PHONE_ACCOUNT_COMPONENT_NAME,
+            CallLog.Calls.PHONE_ACCOUNT_ID};
+
+    // The rows of the call log provider, from the newest to the oldest.
+    private static final Object[] ROW_6 = row(6, NUMBER_1, 600);
+    private static final Object[] ROW_5 = row(5, NUMBER_1, 500);
+    private static final Object[] ROW_4 = row(4, NUMBER_1, 400);
+    private static final Object[] ROW_3 = row(3, NUMBER_2, 300);
+    private static final Object[] ROW_2 = row(2, NUMBER_2, 200);
+    private static final Object[] ROW_1 = row(1, NUMBER_3, 100);
+
+    private CallHistoryLiveData mCallHistoryLiveData;
+    @Mock
+    private ObservableAsyncQuery mMockObservableAsyncQuery;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        // Holds the merged pages posted from the worker thread until the test runs them.
+        ShadowLooper.pauseMainLooper();
+
+        mCallHistoryLiveData = new CallHistoryLiveData(RuntimeEnvironment.application,
+                CallHistoryLiveData.CallType.CALL_TYPE_ALL, PAGE_SIZE, /* isPaged= */true,
+                mMockObservableAsyncQuery);
+        mCallHistoryLiveData.observeForever(callLogs -> { });
+    }
+
+    @After
+    public void tearDown() {
+        ShadowLooper.unPauseMainLooper();
+    }
+
+    @Test
+    public void testInitialPage() throws Exception {
+        verify(mMockObservableAsyncQuery).startQuery();
+
+        MatrixCursor cursor = runQuery(ROW_5, ROW_4);
+
+        assertThat(cursor.isClosed()).isTrue();
+        List<PhoneCallLog> callLogs = mCallHistoryLiveData.getValue();
+        assertThat(callLogs).hasSize(1);
+        assertCallLog(callLogs.get(0), NUMBER_1, /* id= */5, /* recordCount= */2);
+        assertThat(mCallHistoryLiveData.hasMore()).isTrue();
+    }
+
+    @Test
+    public void testNewerRow_isMergedIntoHead() throws Exception {
+        runQuery(ROW_5, ROW_4);
+
+        // The provider notifies the change and only the newer row is queried.
+        runQuery(ROW_6);
+
+        List<PhoneCallLog> callLogs = mCallHistoryLiveData.getValue();
+        assertThat(callLogs).hasSize(1);
+        assertCallLog(callLogs.get(0), NUMBER_1, /* id= */6, /* recordCount= */3);
+        assertThat(mCallHistoryLiveData.hasMore()).isTrue();
+    }
+
+    @Test
+    public void testLoadMore_appendsOlderRows() throws Exception {
+        runQuery(ROW_5, ROW_4);
+
+        mCallHistoryLiveData.loadMore();
+        verify(mMockObservableAsyncQuery, times(2)).startQuery();
+        // The last call log is queried again along with the older rows.
+        runQuery(ROW_5, ROW_4, ROW_3, ROW_2);
+
+        List<PhoneCallLog> callLogs = mCallHistoryLiveData.getValue();
+        assertThat(callLogs).hasSize(2);
+        assertCallLog(callLogs.get(0), NUMBER_1, /* id= */5, /* recordCount= */2);
+        assertCallLog(callLogs.get(1), NUMBER_2, /* id= */3, /* recordCount= */2);
+        assertThat(mCallHistoryLiveData.hasMore()).isTrue();
+
+        mCallHistoryLiveData.loadMore();
+        verify(mMockObservableAsyncQuery, times(3)).startQuery();
+        runQuery(ROW_3, ROW_2, ROW_1);
+
+        callLogs = mCallHistoryLiveData.getValue();
+        assertThat(callLogs).hasSize(3);
+        assertCallLog(callLogs.get(1), NUMBER_2, /* id= */3, /* recordCount= */2);
+        assertCallLog(callLogs.get(2), NUMBER_3, /* id= */1, /* recordCount= */1);
+        assertThat(mCallHistoryLiveData.hasMore()).isFalse();
+    }
+
+    @Test
+    public void testLoadMore_lastCallLogChanged_reloads() throws Exception {
+        runQuery(ROW_5, ROW_4);
+
+        mCallHistoryLiveData.loadMore();
+        // The last call log was deleted before the older rows were queried.
+        runQuery(ROW_3, ROW_2);
+
+        verify(mMockObservableAsyncQuery, times(3)).startQuery();
+        List<PhoneCallLog> callLogs = mCallHistoryLiveData.getValue();
+        assertCallLog(callLogs.get(0), NUMBER_1, /* id= */5, /* recordCount= */2);
+
+        runQuery(ROW_3, ROW_2);
+
+        callLogs = mCallHistoryLiveData.getValue();
+        assertThat(callLogs).hasSize(1);
+        assertCallLog(callLogs.get(0), NUMBER_2, /* id= */3, /* recordCount= */2);
+    }
+
+    @Test
+    public void testStalePage_reloads() throws Exception {
+        runQuery(ROW_5, ROW_4);
+
+        mCallHistoryLiveData.getQueryParam();
+        MatrixCursor newerCursor = createCursor(ROW_6);
+        mCallHistoryLiveData.onQueryFinished(newerCursor);
+        waitForWorker();
+        // Another change is queried against the page before the merged one is posted.
+        mCallHistoryLiveData.getQueryParam();
+        MatrixCursor staleCursor = createCursor(ROW_6);
+        mCallHistoryLiveData.onQueryFinished(staleCursor);
+        waitForWorker();
+        ShadowLooper.runUiThreadTasks();
+
+        assertThat(newerCursor.isClosed()).isTrue();
+        assertThat(staleCursor.isClosed()).isTrue();
+        assertCallLog(mCallHistoryLiveData.getValue().get(0), NUMBER_1, /* id= */6,
+                /* recordCount= */3);
+        verify(mMockObservableAsyncQuery, times(2)).startQuery();
+
+        runQuery(ROW_6, ROW_5, ROW_4);
+
+        List<PhoneCallLog> callLogs = mCallHistoryLiveData.getValue();
+        assertThat(callLogs).hasSize(1);
+        assertCallLog(callLogs.get(0), NUMBER_1, /* id= */6, /* recordCount= */3);
+    }
+
+    @Test
+    public void testNullCursor_keepsLoadedCallLogs() throws Exception {
+        runQuery(ROW_5, ROW_4);
+        List<PhoneCallLog> callLogs = mCallHistoryLiveData.getValue();
+
+        mCallHistoryLiveData.getQueryParam();
+        mCallHistoryLiveData.onQueryFinished(null);
+        waitForWorker();
+        ShadowLooper.runUiThreadTasks();
+
+        assertThat(mCallHistoryLiveData.getValue()).isSameAs(callLogs);
+    }
+
+    /** Issues the next query, answers it with the rows and waits for the result to be posted. */
+    private MatrixCursor runQuery(Object[]... rows) throws Exception {
+        mCallHistoryLiveData.getQueryParam();
+        MatrixCursor cursor = createCursor(rows);
+        mCallHistoryLiveData.onQueryFinished(cursor);
+        waitForWorker();
+        ShadowLooper.runUiThreadTasks();
+        return cursor;
+    }
+
+    private static void waitForWorker() throws Exception {
+        WorkerExecutor.getInstance().getSingleThreadExecutor().submit(() -> { }).get();
+    }
+
+    private static MatrixCursor createCursor(Object[]... rows) {
+        MatrixCursor cursor = new MatrixCursor(COLUMNS);
+        for (Object[] row : rows) {
+            cursor.addRow(row);
+        }
+        return cursor;
+    }
+
+    private static Object[] row(long id, String number, long date) {
+        return new Object[]{id, number, date, /* duration= */0L, CallLog.Calls.INCOMING_TYPE,
+                "US", null, null, null};
+    }
+
+    private static void assertCallLog(PhoneCallLog callLog, String number, long id,
+            int recordCount) {
+        assertThat(callLog.getPhoneNumberString()).isEqualTo(number);
+        assertThat(callLog.getPhoneLogId()).isEqualTo(id);
+        assertThat(callLog.getAllCallRecords()).hasSize(recordCount);
+    }
+}
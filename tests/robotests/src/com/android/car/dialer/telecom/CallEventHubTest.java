@@ -0,0 +1,125 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.dialer.telecom;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.net.Uri;
+import android.telecom.Call;
+
+import com.android.car.dialer.CarDialerRobolectricTestRunner;
+import com.android.car.telephony.common.CallDetail;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+@RunWith(CarDialerRobolectricTestRunner.class)
+public class CallEventHubTest {
+    private static final Uri HANDLE = Uri.fromParts("tel", "6505551234", null);
+
+    @Mock
+    private Call mMockCall;
+    @Mock
+    private Call.Details mMockDetails;
+    @Mock
+    private Call.Callback mMockSubscriber1;
+    @Mock
+    private Call.Callback mMockSubscriber2;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+
+        when(mMockDetails.getHandle()).thenReturn(HANDLE);
+        when(mMockCall.getDetails()).thenReturn(mMockDetails);
+    }
+
+    @After
+    public void tearDown() {
+        CallEventHub.reset();
+    }
+
+    @Test
+    public void testRegisterCallback_registersOnceAndDispatchesToAll() {
+        ArgumentCaptor<Call.Callback> callbackCaptor = ArgumentCaptor.forClass(Call.Callback.class);
+        CallEventHub.registerCallback(mMockCall, mMockSubscriber1);
+        CallEventHub.registerCallback(mMockCall, mMockSubscriber2);
+        verify(mMockCall).registerCallback(callbackCaptor.capture());
+
+        callbackCaptor.getValue().onStateChanged(mMockCall, Call.STATE_ACTIVE);
+
+        verify(mMockSubscriber1).onStateChanged(mMockCall, Call.STATE_ACTIVE);
+        verify(mMockSubscriber2).onStateChanged(mMockCall, Call.STATE_ACTIVE);
+
+        CallEventHub.unregisterCallback(mMockCall, mMockSubscriber1);
+        verify(mMockCall, never()).unregisterCallback(any());
+        CallEventHub.unregisterCallback(mMockCall, mMockSubscriber2);
+        verify(mMockCall).unregisterCallback(callbackCaptor.getValue());
+    }
+
+    @Test
+    public void testGetCallDetail_sharedUntilDetailsChange() {
+        ArgumentCaptor<Call.Callback> callbackCaptor = ArgumentCaptor.forClass(Call.Callback.class);
+        CallEventHub.registerCallback(mMockCall, mMockSubscriber1);
+        verify(mMockCall).registerCallback(callbackCaptor.capture());
+
+        CallDetail callDetail = CallEventHub.getCallDetail(mMockCall);
+        assertThat(CallEventHub.getCallDetail(mMockCall)).isSameAs(callDetail);
+
+        callbackCaptor.getValue().onDetailsChanged(mMockCall, mMockDetails);
+        verify(mMockSubscriber1).onDetailsChanged(mMockCall, mMockDetails);
+        assertThat(CallEventHub.getCallDetail(mMockCall)).isNotSameAs(callDetail);
+
+        CallEventHub.unregisterCallback(mMockCall, mMockSubscriber1);
+    }
+
+    @Test
+    public void testClear_unregistersCallAndDropsSubscribers() {
+        ArgumentCaptor<Call.Callback> callbackCaptor = ArgumentCaptor.forClass(Call.Callback.class);
+        CallEventHub.registerCallback(mMockCall, mMockSubscriber1);
+        verify(mMockCall).registerCallback(callbackCaptor.capture());
+
+        CallEventHub.clear(mMockCall);
+        verify(mMockCall).unregisterCallback(callbackCaptor.getValue());
+
+        callbackCaptor.getValue().onStateChanged(mMockCall, Call.STATE_DISCONNECTED);
+        verify(mMockSubscriber1, never()).onStateChanged(any(), anyInt());
+    }
+
+    @Test
+    public void testOnCallDestroyed_dropsHub() {
+        ArgumentCaptor<Call.Callback> callbackCaptor = ArgumentCaptor.forClass(Call.Callback.class);
+        CallEventHub.registerCallback(mMockCall, mMockSubscriber1);
+        verify(mMockCall).registerCallback(callbackCaptor.capture());
+
+        callbackCaptor.getValue().onCallDestroyed(mMockCall);
+
+        verify(mMockSubscriber1).onCallDestroyed(mMockCall);
+        verify(mMockCall).unregisterCallback(callbackCaptor.getValue());
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.dialer.telecom;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.verify;
+
+import android.bluetooth.BluetoothAdapter;
+import android.bluetooth.BluetoothDevice;
+import android.bluetooth.BluetoothHeadsetClient;
+import android.bluetooth.BluetoothProfile;
+import android.content.Context;
+import android.content.Intent;
+
+import com.android.car.dialer.CarDialerRobolectricTestRunner;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.shadows.ShadowLooper;
+
+@RunWith(CarDialerRobolectricTestRunner.class)
+public class HfpStateTrackerTest {
+    private static final String ADDRESS_1 = "00:11:22:33:44:55";
+    private static final String ADDRESS_2 = "AA:BB:CC:DD:EE:FF";
+
+    private Context mContext;
+    private HfpStateTracker mHfpStateTracker;
+    private BluetoothDevice mDevice1;
+    private BluetoothDevice mDevice2;
+    @Mock
+    private HfpStateTracker.Listener mMockListener;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+
+        mContext = RuntimeEnvironment.application;
+        mHfpStateTracker = new HfpStateTracker(mContext, mMockListener);
+        mDevice1 = BluetoothAdapter.getDefaultAdapter().getRemoteDevice(ADDRESS_1);
+        mDevice2 = BluetoothAdapter.getDefaultAdapter().getRemoteDevice(ADDRESS_2);
+    }
+
+    @After
+    public void tearDown() {
+        mHfpStateTracker.tearDown();
+    }
+
+    @Test
+    public void testConnectionState_tracksEachDevice() {
+        sendBroadcast(BluetoothHeadsetClient.ACTION_CONNECTION_STATE_CHANGED, mDevice1,
+                BluetoothProfile.STATE_CONNECTED);
+        sendBroadcast(BluetoothHeadsetClient.ACTION_CONNECTION_STATE_CHANGED, mDevice2,
+                BluetoothProfile.STATE_CONNECTED);
+
+        verify(mMockListener, atLeastOnce()).onHfpStateChanged();
+        assertThat(mHfpStateTracker.hasConnectedDevices()).isTrue();
+        assertThat(mHfpStateTracker.getDevice(ADDRESS_1)).isEqualTo(mDevice1);
+        assertThat(mHfpStateTracker.getDevice(ADDRESS_2)).isEqualTo(mDevice2);
+
+        sendBroadcast(BluetoothHeadsetClient.ACTION_CONNECTION_STATE_CHANGED, mDevice1,
+                BluetoothProfile.STATE_DISCONNECTED);
+
+        assertThat(mHfpStateTracker.getDevice(ADDRESS_1)).isNull();
+        assertThat(mHfpStateTracker.getDevice(ADDRESS_2)).isEqualTo(mDevice2);
+    }
+
+    @Test
+    public void testAudioState_tracksEachDevice() {
+        sendBroadcast(BluetoothHeadsetClient.ACTION_CONNECTION_STATE_CHANGED, mDevice1,
+                BluetoothProfile.STATE_CONNECTED);
+        sendBroadcast(BluetoothHeadsetClient.ACTION_CONNECTION_STATE_CHANGED, mDevice2,
+                BluetoothProfile.STATE_CONNECTED);
+        assertThat(mHfpStateTracker.isAudioConnected()).isFalse();
+
+        sendBroadcast(BluetoothHeadsetClient.ACTION_AUDIO_STATE_CHANGED, mDevice2,
+                BluetoothHeadsetClient.STATE_AUDIO_CONNECTED);
+
+        assertThat(mHfpStateTracker.isAudioConnected()).isTrue();
+        assertThat(mHfpStateTracker.isAudioConnected(mDevice1)).isFalse();
+        assertThat(mHfpStateTracker.isAudioConnected(mDevice2)).isTrue();
+    }
+
+    @Test
+    public void testAudioState_afterDisconnect_isIgnored() {
+        sendBroadcast(BluetoothHeadsetClient.ACTION_CONNECTION_STATE_CHANGED, mDevice1,
+                BluetoothProfile.STATE_CONNECTED);
+        sendBroadcast(BluetoothHeadsetClient.ACTION_CONNECTION_STATE_CHANGED, mDevice1,
+                BluetoothProfile.STATE_DISCONNECTED);
+
+        sendBroadcast(BluetoothHeadsetClient.ACTION_AUDIO_STATE_CHANGED, mDevice1,
+                BluetoothHeadsetClient.STATE_AUDIO_DISCONNECTED);
+
+        assertThat(mHfpStateTracker.hasConnectedDevices()).isFalse();
+        assertThat(mHfpStateTracker.getDevice(ADDRESS_1)).isNull();
+    }
+
+    @Test
+    public void testGetDeviceWithCalls_noCalls() {
+        sendBroadcast(BluetoothHeadsetClient.ACTION_CONNECTION_STATE_CHANGED, mDevice1,
+                BluetoothProfile.STATE_CONNECTED);
+
+        assertThat(mHfpStateTracker.getDeviceWithCalls()).isNull();
+    }
+
+    private void sendBroadcast(String action, BluetoothDevice device, int state) {
+        Intent intent = new Intent(action);
+        intent.putExtra(BluetoothDevice.EXTRA_DEVICE, device);
+        intent.putExtra(BluetoothProfile.EXTRA_STATE, state);
+        mContext.sendBroadcast(intent);
+        ShadowLooper.runUiThreadTasks();
+    }
+}
@@ -168,4 +168,18 @@ public class InCallServiceImplTest {
         mInCallServiceImpl.onCallRemoved(mMockTelecomCall);
         verify(mActiveCallListChangedCallback, never()).onTelecomCallRemoved(any());
     }
+
+    @Test
+    public void testGetCall_indexedByTelecomCallId() {
+        when(mMockTelecomCall.getState()).thenReturn(Call.STATE_ACTIVE);
+        mInCallServiceImpl.onCallAdded(mMockTelecomCall);
+
+        assertThat(mInCallServiceImpl.getCall(TELECOM_CALL_ID)).isEqualTo(mMockTelecomCall);
+        assertThat(mInCallServiceImpl.getCallList()).containsExactly(mMockTelecomCall);
+
+        mInCallServiceImpl.onCallRemoved(mMockTelecomCall);
+
+        assertThat(mInCallServiceImpl.getCall(TELECOM_CALL_ID)).isNull();
+        assertThat(mInCallServiceImpl.getCallList()).isEmpty();
+    }
 }
@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.dialer.telecom;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.content.Context;
+import android.content.Intent;
+
+import com.android.car.dialer.CarDialerRobolectricTestRunner;
+import com.android.car.telephony.common.TelecomUtils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.shadows.ShadowLooper;
+
+@RunWith(CarDialerRobolectricTestRunner.class)
+public class PhoneNumberCacheTest {
+    private static final String PHONE_NUMBER = "6502530000";
+
+    private Context mContext;
+    private PhoneNumberCache mPhoneNumberCache;
+
+    @Before
+    public void setUp() {
+        mContext = RuntimeEnvironment.application;
+        mPhoneNumberCache = PhoneNumberCache.get(mContext);
+    }
+
+    @After
+    public void tearDown() {
+        PhoneNumberCache.tearDown();
+    }
+
+    @Test
+    public void testGetFormattedNumber_sameAsTelecomUtils() {
+        assertThat(mPhoneNumberCache.getFormattedNumber(PHONE_NUMBER)).isEqualTo(
+                TelecomUtils.getFormattedNumber(mContext, PHONE_NUMBER));
+    }
+
+    @Test
+    public void testGetFormattedNumber_secondLookupIsHit() {
+        mPhoneNumberCache.getFormattedNumber(PHONE_NUMBER);
+        assertThat(mPhoneNumberCache.getMissCount()).isEqualTo(1);
+        assertThat(mPhoneNumberCache.getHitCount()).isEqualTo(0);
+
+        mPhoneNumberCache.getFormattedNumber(PHONE_NUMBER);
+        assertThat(mPhoneNumberCache.getMissCount()).isEqualTo(1);
+        assertThat(mPhoneNumberCache.getHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testIsPossibleNumber() {
+        assertThat(mPhoneNumberCache.isPossibleNumber(PHONE_NUMBER)).isTrue();
+        assertThat(mPhoneNumberCache.isPossibleNumber("xxxxx")).isFalse();
+        assertThat(mPhoneNumberCache.isPossibleNumber("")).isFalse();
+        assertThat(mPhoneNumberCache.isPossibleNumber(null)).isFalse();
+    }
+
+    @Test
+    public void testIsPossibleNumber_secondLookupIsHit() {
+        mPhoneNumberCache.isPossibleNumber(PHONE_NUMBER);
+        mPhoneNumberCache.isPossibleNumber(PHONE_NUMBER);
+
+        assertThat(mPhoneNumberCache.getMissCount()).isEqualTo(1);
+        assertThat(mPhoneNumberCache.getHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testLocaleChanged_invalidatesCache() {
+        mPhoneNumberCache.getFormattedNumber(PHONE_NUMBER);
+
+        mContext.sendBroadcast(new Intent(Intent.ACTION_LOCALE_CHANGED));
+        ShadowLooper.runUiThreadTasks();
+        mPhoneNumberCache.getFormattedNumber(PHONE_NUMBER);
+
+        assertThat(mPhoneNumberCache.getMissCount()).isEqualTo(2);
+        assertThat(mPhoneNumberCache.getHitCount()).isEqualTo(0);
+    }
+}
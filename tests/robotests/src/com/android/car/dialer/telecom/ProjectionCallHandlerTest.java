@@ -256,6 +256,19 @@ public class ProjectionCallHandlerTest {
         assertThat(shouldSuppressCallFor(mHfpAccount)).isFalse();
     }
 
+    @Test
+    public void call_fromSameAccount_looksUpPhoneAccountOnce() {
+        sendProjectionStatus(suppressableStatus());
+
+        assertThat(shouldSuppressCallFor(mHfpAccount)).isTrue();
+        assertThat(shouldSuppressCallFor(mHfpAccount)).isTrue();
+        assertThat(shouldSuppressCallFor(mNonHfpAccount)).isFalse();
+        assertThat(shouldSuppressCallFor(mNonHfpAccount)).isFalse();
+
+        verify(mTelecomManager).getPhoneAccount(mHfpAccount.getAccountHandle());
+        verify(mTelecomManager).getPhoneAccount(mNonHfpAccount.getAccountHandle());
+    }
+
     @Test
     public void call_withNullDetails_isNotSuppressed() {
         sendProjectionStatus(suppressableStatus());
@@ -0,0 +1,45 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.dialer.testutils;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.android.car.telephony.common.Contact;
+import com.android.car.telephony.common.PhoneNumber;
+
+import java.util.Collections;
+
+/**
+ * Helper class for creating the mock contacts indexed by the contact search.
+ */
+public final class ContactTestUtils {
+
+    /** Returns a mock contact with a single phone number. */
+    public static Contact mockContact(String lookupKey, String displayName, String number) {
+        Contact contact = mock(Contact.class);
+        PhoneNumber phoneNumber = mock(PhoneNumber.class);
+        when(phoneNumber.getRawNumber()).thenReturn(number);
+        when(contact.getLookupKey()).thenReturn(lookupKey);
+        when(contact.getDisplayName()).thenReturn(displayName);
+        when(contact.getNumbers()).thenReturn(Collections.singletonList(phoneNumber));
+        return contact;
+    }
+
+    private ContactTestUtils() {
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.dialer.ui.activecall;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.telecom.Call;
+
+import com.android.car.dialer.CarDialerRobolectricTestRunner;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+@RunWith(CarDialerRobolectricTestRunner.class)
+public class CallStateStoreTest {
+
+    private CallStateStore mCallStateStore;
+    @Mock
+    private CallStateStore.Listener mMockListener;
+    @Mock
+    private Call mMockActiveCall;
+    @Mock
+    private Call mMockRingingCall;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+
+        when(mMockActiveCall.getState()).thenReturn(Call.STATE_ACTIVE);
+        when(mMockRingingCall.getState()).thenReturn(Call.STATE_RINGING);
+        mCallStateStore = new CallStateStore(mMockListener);
+    }
+
+    @Test
+    public void testSetCalls_notifiesOnlyMembershipChanges() {
+        mCallStateStore.setCalls(Arrays.asList(mMockActiveCall, mMockRingingCall));
+        verify(mMockListener).onCallAdded(mMockActiveCall);
+        verify(mMockListener).onCallAdded(mMockRingingCall);
+        assertThat(mCallStateStore.getState(mMockRingingCall)).isEqualTo(Call.STATE_RINGING);
+
+        mCallStateStore.setCalls(Collections.singletonList(mMockActiveCall));
+        verify(mMockListener).onCallRemoved(mMockRingingCall);
+        verify(mMockListener, never()).onCallRemoved(mMockActiveCall);
+        assertThat(mCallStateStore.getCalls()).containsExactly(mMockActiveCall);
+        assertThat(mCallStateStore.getState(mMockRingingCall)).isEqualTo(-1);
+    }
+
+    @Test
+    public void testOnStateChanged_notifiesStateDelta() {
+        ArgumentCaptor<Call.Callback> callbackCaptor = ArgumentCaptor.forClass(Call.Callback.class);
+        mCallStateStore.setCalls(Collections.singletonList(mMockRingingCall));
+        verify(mMockRingingCall).registerCallback(callbackCaptor.capture());
+
+        callbackCaptor.getValue().onStateChanged(mMockRingingCall, Call.STATE_RINGING);
+        verify(mMockListener, never()).onCallStateChanged(any(), anyInt());
+
+        callbackCaptor.getValue().onStateChanged(mMockRingingCall, Call.STATE_ACTIVE);
+        verify(mMockListener).onCallStateChanged(mMockRingingCall, Call.STATE_ACTIVE);
+        assertThat(mCallStateStore.getState(mMockRingingCall)).isEqualTo(Call.STATE_ACTIVE);
+    }
+
+    @Test
+    public void testTearDown_unregistersCallback() {
+        mCallStateStore.setCalls(Collections.singletonList(mMockActiveCall));
+
+        mCallStateStore.tearDown();
+
+        verify(mMockActiveCall).unregisterCallback(any());
+        verify(mMockListener, never()).onCallRemoved(any());
+        assertThat(mCallStateStore.getCalls()).isEmpty();
+    }
+
+    @Test
+    public void testGetRank() {
+        assertThat(CallStateStore.getRank(Call.STATE_DIALING, false))
+                .isGreaterThan(CallStateStore.getRank(Call.STATE_ACTIVE, false));
+        assertThat(CallStateStore.getRank(Call.STATE_ACTIVE, false))
+                .isGreaterThan(CallStateStore.getRank(Call.STATE_HOLDING, false));
+        assertThat(CallStateStore.getRank(Call.STATE_HOLDING, false))
+                .isGreaterThan(CallStateStore.getRank(Call.STATE_RINGING, false));
+        // Calls in a conference are always ranked lower.
+        assertThat(CallStateStore.getRank(Call.STATE_RINGING, false))
+                .isGreaterThan(CallStateStore.getRank(Call.STATE_DIALING, true));
+    }
+
+    @Test
+    public void testOnParentChanged_updatesRank() {
+        ArgumentCaptor<Call.Callback> callbackCaptor = ArgumentCaptor.forClass(Call.Callback.class);
+        mCallStateStore.setCalls(Collections.singletonList(mMockActiveCall));
+        verify(mMockActiveCall).registerCallback(callbackCaptor.capture());
+        assertThat(mCallStateStore.getRank(mMockActiveCall))
+                .isEqualTo(CallStateStore.getRank(Call.STATE_ACTIVE, false));
+
+        Call parent = mock(Call.class);
+        callbackCaptor.getValue().onParentChanged(mMockActiveCall, parent);
+
+        verify(mMockListener).onCallParentChanged(mMockActiveCall, parent);
+        assertThat(mCallStateStore.getRank(mMockActiveCall))
+                .isEqualTo(CallStateStore.getRank(Call.STATE_ACTIVE, true));
+    }
+}
@@ -20,6 +20,7 @@ import static com.google.common.truth.Truth.assertThat;
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import android.app.Application;
@@ -31,6 +32,7 @@ import android.telecom.DisconnectCause;
 import android.telecom.GatewayInfo;
 
 import androidx.core.util.Pair;
+import androidx.lifecycle.LiveData;
 
 import com.android.car.dialer.CarDialerRobolectricTestRunner;
 import com.android.car.dialer.TestDialerApplication;
@@ -42,9 +44,11 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.robolectric.RuntimeEnvironment;
+import org.robolectric.shadows.ShadowLooper;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -103,7 +107,7 @@ public class InCallViewModelTest {
         mListForMockCalls.add(mMockDialingCall);
         mListForMockCalls.add(mMockHoldingCall);
         mListForMockCalls.add(mMockRingingCall);
-        when(mInCallService.getCalls()).thenReturn(mListForMockCalls);
+        when(mInCallService.getCallList()).thenReturn(mListForMockCalls);
         UiCallManager.set(mMockUiCallManager);
         when(mMockUiCallManager.getAudioRoute()).thenReturn(CallAudioState.ROUTE_BLUETOOTH);
 
@@ -197,4 +201,99 @@ public class InCallViewModelTest {
 
         assertThat(mInCallViewModel.getPrimaryCall().getValue()).isEqualTo(mMockActiveCall);
     }
+
+    @Test
+    public void testOnCallStateChanged_updatePrimaryCall() {
+        ArgumentCaptor<Call.Callback> callbackCaptor = ArgumentCaptor.forClass(Call.Callback.class);
+        verify(mMockRingingCall).registerCallback(callbackCaptor.capture());
+
+        when(mMockRingingCall.getState()).thenReturn(Call.STATE_ACTIVE);
+        callbackCaptor.getValue().onStateChanged(mMockRingingCall, Call.STATE_ACTIVE);
+
+        assertThat(mInCallViewModel.getIncomingCall().getValue()).isNull();
+        assertThat(mInCallViewModel.getOngoingCallList().getValue()).containsExactly(
+                mMockDialingCall, mMockActiveCall, mMockRingingCall, mMockHoldingCall).inOrder();
+        assertThat(mInCallViewModel.getPrimaryCall().getValue()).isEqualTo(mMockDialingCall);
+    }
+
+    @Test
+    public void testOnCallStateChanged_equalRanksKeepCallListOrder() {
+        ArgumentCaptor<Call.Callback> activeCallbackCaptor =
+                ArgumentCaptor.forClass(Call.Callback.class);
+        ArgumentCaptor<Call.Callback> holdingCallbackCaptor =
+                ArgumentCaptor.forClass(Call.Callback.class);
+        verify(mMockActiveCall).registerCallback(activeCallbackCaptor.capture());
+        verify(mMockHoldingCall).registerCallback(holdingCallbackCaptor.capture());
+
+        // The call listed later in telecom changes first.
+        holdingCallbackCaptor.getValue().onStateChanged(mMockHoldingCall, Call.STATE_ACTIVE);
+        activeCallbackCaptor.getValue().onStateChanged(mMockActiveCall, Call.STATE_HOLDING);
+        activeCallbackCaptor.getValue().onStateChanged(mMockActiveCall, Call.STATE_ACTIVE);
+
+        assertThat(mInCallViewModel.getOngoingCallList().getValue()).containsExactly(
+                mMockDialingCall, mMockActiveCall, mMockHoldingCall).inOrder();
+    }
+
+    @Test
+    public void testGetCallState_updatedPerCall() {
+        ArgumentCaptor<Call.Callback> callbackCaptor = ArgumentCaptor.forClass(Call.Callback.class);
+        verify(mMockHoldingCall).registerCallback(callbackCaptor.capture());
+        LiveData<Integer> holdingCallState = mInCallViewModel.getCallState(mMockHoldingCall);
+        LiveData<Integer> activeCallState = mInCallViewModel.getCallState(mMockActiveCall);
+        assertThat(holdingCallState.getValue()).isEqualTo(Call.STATE_HOLDING);
+
+        callbackCaptor.getValue().onStateChanged(mMockHoldingCall, Call.STATE_ACTIVE);
+
+        assertThat(holdingCallState.getValue()).isEqualTo(Call.STATE_ACTIVE);
+        assertThat(activeCallState.getValue()).isEqualTo(Call.STATE_ACTIVE);
+        assertThat(mInCallViewModel.getCallState(mMockHoldingCall)).isSameAs(holdingCallState);
+    }
+
+    @Test
+    public void testGetCallState_requestedBeforeCallAdded_isUpdated() {
+        Call mockDialingCall = mock(Call.class);
+        when(mockDialingCall.getState()).thenReturn(Call.STATE_DIALING);
+        mListForMockCalls.add(mockDialingCall);
+        LiveData<Integer> callState = mInCallViewModel.getCallState(mockDialingCall);
+        assertThat(callState.getValue()).isEqualTo(Call.STATE_DIALING);
+
+        mInCallViewModel.onTelecomCallAdded(mockDialingCall);
+        ArgumentCaptor<Call.Callback> callbackCaptor = ArgumentCaptor.forClass(Call.Callback.class);
+        verify(mockDialingCall).registerCallback(callbackCaptor.capture());
+        callbackCaptor.getValue().onStateChanged(mockDialingCall, Call.STATE_ACTIVE);
+
+        assertThat(callState.getValue()).isEqualTo(Call.STATE_ACTIVE);
+        assertThat(mInCallViewModel.getCallState(mockDialingCall)).isSameAs(callState);
+    }
+
+    @Test
+    public void testGetCallState_callGoneBeforeListLoaded_isDropped() {
+        Call goneCall = mock(Call.class);
+        when(goneCall.getState()).thenReturn(Call.STATE_ACTIVE);
+        ShadowLooper.pauseMainLooper();
+        InCallViewModel inCallViewModel =
+                new InCallViewModel((Application) RuntimeEnvironment.application);
+        LiveData<Integer> callState = inCallViewModel.getCallState(goneCall);
+        assertThat(inCallViewModel.getCallState(goneCall)).isSameAs(callState);
+
+        // Connects to the service, whose call list doesn't have the call.
+        ShadowLooper.unPauseMainLooper();
+
+        assertThat(inCallViewModel.getCallState(goneCall)).isNotSameAs(callState);
+    }
+
+    @Test
+    public void testGetConferenceParticipants() {
+        ArgumentCaptor<Call.Callback> callbackCaptor = ArgumentCaptor.forClass(Call.Callback.class);
+        verify(mMockActiveCall).registerCallback(callbackCaptor.capture());
+        LiveData<List<Call>> participants =
+                mInCallViewModel.getConferenceParticipants(mMockActiveCall);
+        assertThat(participants.getValue()).isEmpty();
+
+        callbackCaptor.getValue().onChildrenChanged(mMockActiveCall,
+                Arrays.asList(mMockHoldingCall, mMockDialingCall));
+
+        assertThat(participants.getValue())
+                .containsExactly(mMockHoldingCall, mMockDialingCall).inOrder();
+    }
 }
@@ -61,7 +61,7 @@ public class CallHistoryFragmentTest {
     private static final String HEADER = "TODAY";
     private static final String PHONE_NUMBER = "6502530000";
     private static final String UI_CALLOG_TITLE = "TITLE";
-    private static final String UI_CALLOG_TEXT = "TEXT";
+    private static final String UI_CALLOG_LABEL = "LABEL";
     private static final long TIME_STAMP_1 = System.currentTimeMillis();
     private static final long TIME_STAMP_2 = System.currentTimeMillis() - 10000;
 
@@ -86,8 +86,8 @@ public class CallHistoryFragmentTest {
                 CallHistoryLiveData.CallType.INCOMING_TYPE);
         PhoneCallLog.Record record2 = new PhoneCallLog.Record(TIME_STAMP_2,
                 CallHistoryLiveData.CallType.OUTGOING_TYPE);
-        UiCallLog uiCallLog = new UiCallLog(UI_CALLOG_TITLE, UI_CALLOG_TEXT, PHONE_NUMBER, mMockUri,
-                Arrays.asList(record1, record2));
+        UiCallLog uiCallLog = new UiCallLog(UI_CALLOG_TITLE, UI_CALLOG_LABEL, PHONE_NUMBER,
+                mMockUri, Arrays.asList(record1, record2));
 
         MutableLiveData<List<Object>> callLog = new MutableLiveData<>();
         callLog.setValue(Arrays.asList(HEADER, uiCallLog));
@@ -131,7 +131,7 @@ public class CallHistoryFragmentTest {
                 R.id.call_type_icons);
 
         assertThat(titleView.getText()).isEqualTo(UI_CALLOG_TITLE);
-        assertThat(textView.getText().toString()).isEqualTo(UI_CALLOG_TEXT);
+        assertThat(textView.getText().toString()).startsWith(UI_CALLOG_LABEL + ", ");
         assertThat(callTypeIconsView.getCallType(0)).isEqualTo(
                 CallHistoryLiveData.CallType.INCOMING_TYPE);
         assertThat(callTypeIconsView.getCallType(1)).isEqualTo(
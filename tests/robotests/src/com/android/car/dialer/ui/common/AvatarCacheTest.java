@@ -0,0 +1,83 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.dialer.ui.common;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.graphics.Bitmap;
+
+import com.android.car.dialer.CarDialerRobolectricTestRunner;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RuntimeEnvironment;
+
+@RunWith(CarDialerRobolectricTestRunner.class)
+public class AvatarCacheTest {
+    private static final String DISPLAY_NAME = "name";
+    private static final int SIZE = 64;
+
+    private AvatarCache mAvatarCache;
+
+    @Before
+    public void setUp() {
+        mAvatarCache = AvatarCache.get(RuntimeEnvironment.application);
+    }
+
+    @After
+    public void tearDown() {
+        AvatarCache.tearDown();
+    }
+
+    @Test
+    public void testGetLetterTile_cachedPerSizeAndShape() {
+        Bitmap letterTile = mAvatarCache.getLetterTile(DISPLAY_NAME, SIZE,
+                AvatarCache.Shape.ROUNDED);
+
+        assertThat(letterTile.getWidth()).isEqualTo(SIZE);
+        assertThat(mAvatarCache.getLetterTile(DISPLAY_NAME, SIZE, AvatarCache.Shape.ROUNDED))
+                .isSameAs(letterTile);
+        assertThat(mAvatarCache.getLetterTile(DISPLAY_NAME, SIZE * 2, AvatarCache.Shape.ROUNDED))
+                .isNotSameAs(letterTile);
+    }
+
+    @Test
+    public void testInvalidate_keepsLetterTiles() {
+        Bitmap letterTile = mAvatarCache.getLetterTile(DISPLAY_NAME, SIZE,
+                AvatarCache.Shape.SQUARE);
+
+        mAvatarCache.invalidate();
+
+        assertThat(mAvatarCache.getLetterTile(DISPLAY_NAME, SIZE, AvatarCache.Shape.SQUARE))
+                .isSameAs(letterTile);
+    }
+
+    @Test
+    public void testGetAvatar_noAvatarUri() {
+        assertThat(mAvatarCache.getAvatar(null, SIZE, AvatarCache.Shape.ROUNDED)).isNull();
+    }
+
+    @Test
+    public void testGetSampleSize() {
+        assertThat(AvatarCache.getSampleSize(SIZE, SIZE, SIZE)).isEqualTo(1);
+        assertThat(AvatarCache.getSampleSize(SIZE * 4, SIZE * 4, SIZE)).isEqualTo(4);
+        // The smaller dimension must stay at least the size.
+        assertThat(AvatarCache.getSampleSize(SIZE * 8, SIZE * 3, SIZE)).isEqualTo(2);
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.dialer.ui.common.entity;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.text.format.DateUtils;
+
+import com.android.car.dialer.CarDialerRobolectricTestRunner;
+import com.android.car.dialer.livedata.CallHistoryLiveData;
+import com.android.car.telephony.common.PhoneCallLog;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Collections;
+import java.util.TimeZone;
+
+@RunWith(CarDialerRobolectricTestRunner.class)
+public class UiCallLogTest {
+    private static final long ID = 7;
+    private static final String TITLE = "Title";
+    private static final String NUMBER = "6505551234";
+    /** 2019-01-01 00:00 UTC. */
+    private static final long TIMESTAMP = 1546300800000L;
+
+    private TimeZone mDefaultTimeZone;
+    private UiCallLog mUiCallLog;
+
+    @Before
+    public void setUp() {
+        mDefaultTimeZone = TimeZone.getDefault();
+        TimeZone.setDefault(TimeZone.getTimeZone("UTC"));
+
+        PhoneCallLog.Record record = new PhoneCallLog.Record(TIMESTAMP,
+                CallHistoryLiveData.CallType.INCOMING_TYPE);
+        mUiCallLog = new UiCallLog(ID, TITLE, /* label= */"", NUMBER, /* avatarUri= */null,
+                Collections.singletonList(record));
+    }
+
+    @After
+    public void tearDown() {
+        TimeZone.setDefault(mDefaultTimeZone);
+    }
+
+    @Test
+    public void testMinuteBuckets() {
+        assertSameBucket(59 * DateUtils.MINUTE_IN_MILLIS,
+                59 * DateUtils.MINUTE_IN_MILLIS + 59 * DateUtils.SECOND_IN_MILLIS);
+        assertDifferentBucket(59 * DateUtils.MINUTE_IN_MILLIS, DateUtils.HOUR_IN_MILLIS);
+    }
+
+    @Test
+    public void testHourBuckets() {
+        assertSameBucket(23 * DateUtils.HOUR_IN_MILLIS,
+                23 * DateUtils.HOUR_IN_MILLIS + 59 * DateUtils.MINUTE_IN_MILLIS);
+        assertDifferentBucket(23 * DateUtils.HOUR_IN_MILLIS, DateUtils.DAY_IN_MILLIS);
+    }
+
+    @Test
+    public void testDayBuckets_changeAtMidnight() {
+        assertSameBucket(25 * DateUtils.HOUR_IN_MILLIS,
+                2 * DateUtils.DAY_IN_MILLIS - DateUtils.MINUTE_IN_MILLIS);
+        assertDifferentBucket(2 * DateUtils.DAY_IN_MILLIS - DateUtils.MINUTE_IN_MILLIS,
+                2 * DateUtils.DAY_IN_MILLIS);
+    }
+
+    @Test
+    public void testOlderThanAWeek_staysConstant() {
+        assertDifferentBucket(DateUtils.WEEK_IN_MILLIS - DateUtils.HOUR_IN_MILLIS,
+                DateUtils.WEEK_IN_MILLIS);
+        assertSameBucket(DateUtils.WEEK_IN_MILLIS + DateUtils.DAY_IN_MILLIS,
+                30 * DateUtils.DAY_IN_MILLIS);
+    }
+
+    @Test
+    public void testRefreshRelativeTime_sameBucket_returnsSameInstance() {
+        UiCallLog uiCallLog = mUiCallLog.refreshRelativeTime(
+                TIMESTAMP + 5 * DateUtils.MINUTE_IN_MILLIS);
+
+        assertThat(uiCallLog.refreshRelativeTime(
+                TIMESTAMP + 5 * DateUtils.MINUTE_IN_MILLIS + 30 * DateUtils.SECOND_IN_MILLIS))
+                .isSameAs(uiCallLog);
+    }
+
+    @Test
+    public void testRefreshRelativeTime_newBucket_returnsCopy() {
+        UiCallLog uiCallLog = mUiCallLog.refreshRelativeTime(
+                TIMESTAMP + 5 * DateUtils.MINUTE_IN_MILLIS);
+
+        UiCallLog refreshed = uiCallLog.refreshRelativeTime(
+                TIMESTAMP + 6 * DateUtils.MINUTE_IN_MILLIS);
+
+        assertThat(refreshed).isNotSameAs(uiCallLog);
+        assertThat(refreshed.getRelativeTimeBucket()).isNotEqualTo(
+                uiCallLog.getRelativeTimeBucket());
+        assertThat(refreshed.getId()).isEqualTo(ID);
+        assertThat(refreshed.getTitle()).isEqualTo(TITLE);
+        assertThat(refreshed.getNumber()).isEqualTo(NUMBER);
+        assertThat(refreshed.getMostRecentCallEndTimestamp()).isEqualTo(TIMESTAMP);
+    }
+
+    private void assertSameBucket(long elapsed1, long elapsed2) {
+        assertThat(getBucket(elapsed1)).isEqualTo(getBucket(elapsed2));
+    }
+
+    private void assertDifferentBucket(long elapsed1, long elapsed2) {
+        assertThat(getBucket(elapsed1)).isNotEqualTo(getBucket(elapsed2));
+    }
+
+    private long getBucket(long elapsed) {
+        return mUiCallLog.refreshRelativeTime(TIMESTAMP + elapsed).getRelativeTimeBucket();
+    }
+}
@@ -24,7 +24,6 @@ import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
-import android.util.Pair;
 import android.view.View;
 
 import androidx.fragment.app.Fragment;
@@ -52,12 +51,12 @@ import org.robolectric.annotation.Config;
 import org.robolectric.shadows.ShadowAlertDialog;
 
 import java.util.Arrays;
-import java.util.List;
 
 @Config(shadows = {ShadowAndroidViewModelFactory.class}, qualifiers = "h610dp")
 @RunWith(CarDialerRobolectricTestRunner.class)
 public class ContactListFragmentTest {
     private static final String RAW_NUMBNER = "6502530000";
+    private static final String HEADER_OTHER = "#";
 
     private ContactListFragment mContactListFragment;
     private FragmentTestActivity mFragmentTestActivity;
@@ -83,9 +82,9 @@ public class ContactListFragmentTest {
     public void setUp() {
         MockitoAnnotations.initMocks(this);
 
-        MutableLiveData<Pair<Integer, List<Contact>>> contactList = new MutableLiveData<>();
-        contactList.setValue(new Pair<>(ContactListViewModel.SORT_BY_LAST_NAME,
-                Arrays.asList(mMockContact1, mMockContact2, mMockContact3)));
+        MutableLiveData<SortedContactList> contactList = new MutableLiveData<>();
+        contactList.setValue(new SortedContactList(ContactListViewModel.SORT_BY_LAST_NAME,
+                Arrays.asList(mMockContact1, mMockContact2, mMockContact3), HEADER_OTHER));
         ShadowAndroidViewModelFactory.add(ContactListViewModel.class, mMockContactListViewModel);
         when(mMockContactListViewModel.getAllContacts()).thenReturn(contactList);
         MutableLiveData<Contact> contactDetail = new MutableLiveData<>();
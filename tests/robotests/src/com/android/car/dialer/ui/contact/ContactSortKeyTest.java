@@ -0,0 +1,100 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.dialer.ui.contact;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.Mockito.when;
+
+import com.android.car.dialer.CarDialerRobolectricTestRunner;
+import com.android.car.telephony.common.Contact;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.text.Collator;
+import java.util.Locale;
+
+@RunWith(CarDialerRobolectricTestRunner.class)
+public class ContactSortKeyTest {
+
+    @Mock
+    private Contact mMockContact1;
+    @Mock
+    private Contact mMockContact2;
+    @Mock
+    private Contact mMockContact3;
+
+    private Collator mCollator;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        mCollator = Collator.getInstance(Locale.US);
+
+        mockContact(mMockContact1, "Bob Zhang", "Zhang, Bob", "B", "Z");
+        mockContact(mMockContact2, "Amy Young", "Young, Amy", "A", "Y");
+        mockContact(mMockContact3, "123", null, "#", "#");
+    }
+
+    @Test
+    public void testCompare_byFirstName() {
+        ContactSortKey key1 = new ContactSortKey(mMockContact1, mCollator);
+        ContactSortKey key2 = new ContactSortKey(mMockContact2, mCollator);
+
+        assertThat(key1.compareTo(key2, false)).isGreaterThan(0);
+        assertThat(key2.compareTo(key1, false)).isLessThan(0);
+    }
+
+    @Test
+    public void testCompare_byLastName() {
+        ContactSortKey key1 = new ContactSortKey(mMockContact1, mCollator);
+        ContactSortKey key2 = new ContactSortKey(mMockContact2, mCollator);
+
+        assertThat(key1.compareTo(key2, true)).isGreaterThan(0);
+        assertThat(key2.compareTo(key1, true)).isLessThan(0);
+    }
+
+    @Test
+    public void testCompare_otherLabelSortsLast() {
+        ContactSortKey key1 = new ContactSortKey(mMockContact1, mCollator);
+        ContactSortKey key3 = new ContactSortKey(mMockContact3, mCollator);
+
+        assertThat(key3.compareTo(key1, false)).isGreaterThan(0);
+        assertThat(key3.compareTo(key1, true)).isGreaterThan(0);
+    }
+
+    @Test
+    public void testIsValidFor() {
+        ContactSortKey key1 = new ContactSortKey(mMockContact1, mCollator);
+        assertThat(key1.isValidFor(mMockContact1)).isTrue();
+
+        when(mMockContact1.getDisplayName()).thenReturn("Bobby Zhang");
+        assertThat(key1.isValidFor(mMockContact1)).isFalse();
+    }
+
+    private static void mockContact(Contact contact, String displayName, String altDisplayName,
+            String label, String labelAlt) {
+        when(contact.getDisplayName()).thenReturn(displayName);
+        when(contact.getAltDisplayName()).thenReturn(altDisplayName);
+        when(contact.getPhonebookLabel()).thenReturn(label);
+        when(contact.getPhonebookLabelAlt()).thenReturn(labelAlt);
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.dialer.ui.contact;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.Mockito.when;
+
+import com.android.car.dialer.CarDialerRobolectricTestRunner;
+import com.android.car.telephony.common.Contact;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.Arrays;
+
+@RunWith(CarDialerRobolectricTestRunner.class)
+public class SortedContactListTest {
+    private static final String HEADER_OTHER = "#";
+
+    @Mock
+    private Contact mMockContact1;
+    @Mock
+    private Contact mMockContact2;
+    @Mock
+    private Contact mMockContact3;
+
+    private SortedContactList mSortedContactList;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        when(mMockContact1.getPhonebookLabel()).thenReturn("A");
+        when(mMockContact2.getPhonebookLabel()).thenReturn("A");
+        when(mMockContact3.getPhonebookLabel()).thenReturn(null);
+
+        mSortedContactList = new SortedContactList(ContactListViewModel.SORT_BY_FIRST_NAME,
+                Arrays.asList(mMockContact1, mMockContact2, mMockContact3), HEADER_OTHER);
+    }
+
+    @Test
+    public void testSectionStartAndLabel() {
+        assertThat(mSortedContactList.isSectionStart(0)).isTrue();
+        assertThat(mSortedContactList.isSectionStart(1)).isFalse();
+        assertThat(mSortedContactList.isSectionStart(2)).isTrue();
+        assertThat(mSortedContactList.getSectionLabel(0)).isEqualTo("A");
+        assertThat(mSortedContactList.getSectionLabel(1)).isEqualTo("A");
+        assertThat(mSortedContactList.getSectionLabel(2)).isEqualTo(HEADER_OTHER);
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.dialer.ui.dialpad;
+
+import static com.android.car.dialer.testutils.ContactTestUtils.mockContact;
+import static com.google.common.truth.Truth.assertThat;
+
+import com.android.car.dialer.CarDialerRobolectricTestRunner;
+import com.android.car.dialer.ui.search.ContactSearchIndex;
+import com.android.car.telephony.common.Contact;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+import java.util.List;
+
+@RunWith(CarDialerRobolectricTestRunner.class)
+public class DialpadSuggestionEngineTest {
+
+    // Each contact matches "266" in a different way.
+    private Contact mExactNumberContact;
+    private Contact mNumberPrefixContact;
+    private Contact mNameContact;
+    private Contact mNumberPartContact;
+    private ContactSearchIndex mContactSearchIndex;
+    private DialpadSuggestionEngine mSuggestionEngine;
+
+    @Before
+    public void setUp() {
+        mExactNumberContact = mockContact("key1", "Zed", "266");
+        mNumberPrefixContact = mockContact("key2", "Yan", "2665551234");
+        // "ann" on the dialpad.
+        mNameContact = mockContact("key3", "Ann", "4155550000");
+        mNumberPartContact = mockContact("key4", "Xu", "4152660000");
+
+        mContactSearchIndex = new ContactSearchIndex();
+        mSuggestionEngine = new DialpadSuggestionEngine(mContactSearchIndex);
+        mSuggestionEngine.update(Arrays.asList(mNumberPartContact, mNameContact,
+                mNumberPrefixContact, mExactNumberContact));
+    }
+
+    @Test
+    public void testGetSuggestions_rankedByMatchType() {
+        assertThat(mSuggestionEngine.getSuggestions("266")).containsExactly(
+                mExactNumberContact, mNumberPrefixContact, mNameContact, mNumberPartContact)
+                .inOrder();
+    }
+
+    @Test
+    public void testGetSuggestions_appendingDigits_narrowsSuggestions() {
+        assertThat(mSuggestionEngine.getSuggestions("26")).hasSize(4);
+
+        assertThat(mSuggestionEngine.getSuggestions("2665")).containsExactly(mNumberPrefixContact);
+        assertThat(mSuggestionEngine.getSuggestions("26657")).isEmpty();
+    }
+
+    @Test
+    public void testGetSuggestions_removingDigits_reusesSuggestions() {
+        List<Contact> suggestions = mSuggestionEngine.getSuggestions("26");
+        mSuggestionEngine.getSuggestions("266");
+        mSuggestionEngine.getSuggestions("2665");
+
+        assertThat(mSuggestionEngine.getSuggestions("26")).isSameAs(suggestions);
+    }
+
+    @Test
+    public void testGetSuggestions_ignoresFormatting() {
+        List<Contact> suggestions = mSuggestionEngine.getSuggestions("266");
+
+        assertThat(mSuggestionEngine.getSuggestions("(266)")).isSameAs(suggestions);
+        assertThat(mSuggestionEngine.getSuggestions("-")).isEmpty();
+    }
+
+    @Test
+    public void testIndexUpdate_dropsKeptSuggestions() {
+        List<Contact> suggestions = mSuggestionEngine.getSuggestions("26");
+
+        // Another user of the shared index removes a contact.
+        mContactSearchIndex.update(Arrays.asList(mExactNumberContact, mNumberPrefixContact));
+
+        List<Contact> updatedSuggestions = mSuggestionEngine.getSuggestions("26");
+        assertThat(updatedSuggestions).isNotSameAs(suggestions);
+        assertThat(updatedSuggestions).containsExactly(mExactNumberContact,
+                mNumberPrefixContact).inOrder();
+    }
+}
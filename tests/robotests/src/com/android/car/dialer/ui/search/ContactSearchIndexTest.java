@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.dialer.ui.search;
+
+import static com.android.car.dialer.testutils.ContactTestUtils.mockContact;
+import static com.google.common.truth.Truth.assertThat;
+
+import com.android.car.dialer.CarDialerRobolectricTestRunner;
+import com.android.car.telephony.common.Contact;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+@RunWith(CarDialerRobolectricTestRunner.class)
+public class ContactSearchIndexTest {
+
+    private Contact mContact1;
+    private Contact mContact2;
+    private ContactSearchIndex mContactSearchIndex;
+
+    @Before
+    public void setUp() {
+        mContact1 = mockContact("key1", "Amélie Poulain", "+1 650-253-0000");
+        mContact2 = mockContact("key2", "Bob Smith", "(415) 736-0000");
+
+        mContactSearchIndex = new ContactSearchIndex();
+        mContactSearchIndex.update(Arrays.asList(mContact1, mContact2));
+    }
+
+    @Test
+    public void testSearch_namePrefix() {
+        assertThat(mContactSearchIndex.search("am")).containsExactly(mContact1);
+        assertThat(mContactSearchIndex.search("Smi")).containsExactly(mContact2);
+        assertThat(mContactSearchIndex.search("amelie pou")).containsExactly(mContact1);
+        assertThat(mContactSearchIndex.search("amelie smith")).isEmpty();
+    }
+
+    @Test
+    public void testSearch_number() {
+        assertThat(mContactSearchIndex.search("253-0")).containsExactly(mContact1);
+        assertThat(mContactSearchIndex.search("0000")).containsExactly(mContact1, mContact2);
+    }
+
+    @Test
+    public void testSearch_t9() {
+        // "bob" on the dialpad.
+        assertThat(mContactSearchIndex.search("262")).containsExactly(mContact2);
+    }
+
+    @Test
+    public void testUpdate_removedAndChangedContacts() {
+        Contact renamedContact2 = mockContact("key2", "Robert Smith", "(415) 736-0000");
+        mContactSearchIndex.update(Collections.singletonList(renamedContact2));
+
+        assertThat(mContactSearchIndex.size()).isEqualTo(1);
+        assertThat(mContactSearchIndex.search("am")).isEmpty();
+        assertThat(mContactSearchIndex.search("bob")).isEmpty();
+        assertThat(mContactSearchIndex.search("rob")).containsExactly(renamedContact2);
+    }
+
+    @Test
+    public void testRefine_sameAsSearch() {
+        assertThat(ContactSearchIndex.canRefine("0000", "0000 2")).isTrue();
+        assertThat(mContactSearchIndex.refine(mContactSearchIndex.search("0000"), "0000 2"))
+                .containsExactlyElementsIn(mContactSearchIndex.search("0000 2"));
+
+        assertThat(ContactSearchIndex.canRefine("bob", "bob s")).isTrue();
+        assertThat(mContactSearchIndex.refine(Arrays.asList(mContact1, mContact2), "bob s"))
+                .containsExactly(mContact2);
+    }
+
+    @Test
+    public void testCanRefine() {
+        assertThat(ContactSearchIndex.canRefine(null, "a")).isFalse();
+        assertThat(ContactSearchIndex.canRefine("ab", "a")).isFalse();
+        assertThat(ContactSearchIndex.canRefine("6 5", "6 5a")).isFalse();
+    }
+
+    @Test
+    public void testToT9() {
+        assertThat(ContactSearchIndex.toT9("smith2")).isEqualTo("764842");
+        assertThat(ContactSearchIndex.toT9("ß")).isNull();
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.dialer.ui.view;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.graphics.Bitmap;
+import android.graphics.Color;
+import android.graphics.PorterDuff;
+import android.graphics.PorterDuffColorFilter;
+
+import com.android.car.dialer.CarDialerRobolectricTestRunner;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+@RunWith(CarDialerRobolectricTestRunner.class)
+public class CircleBitmapDrawableTest {
+    private static final int SIZE = 48;
+
+    private CircleBitmapDrawable mCircleBitmapDrawable;
+
+    @Before
+    public void setUp() {
+        mCircleBitmapDrawable = new CircleBitmapDrawable(
+                Bitmap.createBitmap(96, 96, Bitmap.Config.ARGB_8888));
+    }
+
+    @Test
+    public void testToBitmap_sameSize_returnsCachedBitmap() {
+        Bitmap bitmap = mCircleBitmapDrawable.toBitmap(SIZE);
+
+        assertThat(bitmap.getWidth()).isEqualTo(SIZE);
+        assertThat(bitmap.getHeight()).isEqualTo(SIZE);
+        assertThat(mCircleBitmapDrawable.toBitmap(SIZE)).isSameAs(bitmap);
+    }
+
+    @Test
+    public void testToBitmap_newSize_rerenders() {
+        Bitmap bitmap = mCircleBitmapDrawable.toBitmap(SIZE);
+
+        Bitmap largerBitmap = mCircleBitmapDrawable.toBitmap(SIZE * 2);
+
+        assertThat(largerBitmap).isNotSameAs(bitmap);
+        assertThat(largerBitmap.getWidth()).isEqualTo(SIZE * 2);
+    }
+
+    @Test
+    public void testSetAlpha_rerenders() {
+        Bitmap bitmap = mCircleBitmapDrawable.toBitmap(SIZE);
+
+        mCircleBitmapDrawable.setAlpha(128);
+
+        assertThat(mCircleBitmapDrawable.toBitmap(SIZE)).isNotSameAs(bitmap);
+    }
+
+    @Test
+    public void testSetAlpha_unchanged_keepsCachedBitmap() {
+        mCircleBitmapDrawable.setAlpha(128);
+        Bitmap bitmap = mCircleBitmapDrawable.toBitmap(SIZE);
+
+        mCircleBitmapDrawable.setAlpha(128);
+
+        assertThat(mCircleBitmapDrawable.toBitmap(SIZE)).isSameAs(bitmap);
+    }
+
+    @Test
+    public void testSetColorFilter_rerenders() {
+        Bitmap bitmap = mCircleBitmapDrawable.toBitmap(SIZE);
+
+        mCircleBitmapDrawable.setColorFilter(
+                new PorterDuffColorFilter(Color.RED, PorterDuff.Mode.SRC_ATOP));
+
+        assertThat(mCircleBitmapDrawable.toBitmap(SIZE)).isNotSameAs(bitmap);
+    }
+}